@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+# 기동 모드별 첫 가입 성공까지의 시간(time-to-first-join)과 그 시점의 RSS 를 측정한다.
+#
+#   ./gradlew bootJar cdsArchive -Paot
+#   scripts/startup-benchmark.sh                 # jit aot cds aot+cds 각 5회
+#   RUNS=10 scripts/startup-benchmark.sh jit aot
+#
+# 모드
+#   jit      java -jar (현재 방식)
+#   aot      -Dspring.aot.enabled=true       (bootJar -Paot 필요)
+#   cds      -XX:SharedArchiveFile=...        (cdsArchive 필요)
+#   aot+cds  둘 다
+#
+# 모든 모드에 같은 애플리케이션 인자(APP_ARGS)를 주고, DB 는 application.properties 설정을 그대로 쓴다.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+CDS_DIR=${CDS_DIR:-build/cds}
+JAR=${JAR:-$(ls "$CDS_DIR"/spring-tx-*.jar 2>/dev/null | head -n 1)}
+ARCHIVE=${ARCHIVE:-$CDS_DIR/application.jsa}
+JAVA=${JAVA:-java}
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+APP_ARGS=${APP_ARGS:---server.port=$PORT --spring.jpa.show-sql=false --logging.level.root=WARN --logging.level.hello.springtx=WARN --logging.level.org.springframework.transaction.interceptor=WARN --logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN --logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN --logging.level.org.hibernate.resource.transaction=WARN --logging.level.org.hibernate.SQL=WARN}
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+  MODES=(jit aot cds aot+cds)
+fi
+
+if [ -z "$JAR" ] || [ ! -f "$JAR" ]; then
+  echo "extracted jar not found in $CDS_DIR (run ./gradlew bootJar cdsArchive -Paot)" >&2
+  exit 1
+fi
+
+jvm_flags() {
+  case "$1" in
+    jit) ;;
+    aot) echo "-Dspring.aot.enabled=true" ;;
+    cds) echo "-XX:SharedArchiveFile=$ARCHIVE -Xshare:auto" ;;
+    aot+cds) echo "-Dspring.aot.enabled=true -XX:SharedArchiveFile=$ARCHIVE -Xshare:auto" ;;
+    *) echo "unknown mode: $1" >&2; exit 1 ;;
+  esac
+}
+
+now_ms() {
+  date +%s%3N
+}
+
+# 한 번 기동해서 "<time-to-first-join ms> <rss kB>" 를 출력
+run_once() {
+  local mode=$1 run=$2
+  local username="startup_${mode}_${run}_$(date +%s%N)"
+  local start pid elapsed rss deadline
+
+  start=$(now_ms)
+  # shellcheck disable=SC2046
+  "$JAVA" $(jvm_flags "$mode") -jar "$JAR" $APP_ARGS > "build/startup-$mode-$run.log" 2>&1 &
+  pid=$!
+  deadline=$((start + TIMEOUT_SECONDS * 1000))
+
+  until curl -sf -o /dev/null -X POST "http://localhost:$PORT/members?username=$username"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited, see build/startup-$mode-$run.log" >&2
+      exit 1
+    fi
+    if [ "$(now_ms)" -gt "$deadline" ]; then
+      kill "$pid"
+      echo "timed out after ${TIMEOUT_SECONDS}s, see build/startup-$mode-$run.log" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(($(now_ms) - start))
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed $rss"
+}
+
+median() {
+  sort -n | awk '{v[NR] = $1} END {print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)}'
+}
+
+printf '%-8s %6s %22s %18s\n' mode runs "first join ms (p50)" "rss MB (p50)"
+for mode in "${MODES[@]}"; do
+  times=()
+  rss=()
+  for run in $(seq 1 "$RUNS"); do
+    read -r t r < <(run_once "$mode" "$run")
+    times+=("$t")
+    rss+=("$r")
+  done
+  printf '%-8s %6d %22d %18d\n' "$mode" "$RUNS" \
+    "$(printf '%s\n' "${times[@]}" | median)" \
+    "$(($(printf '%s\n' "${rss[@]}" | median) / 1024))"
+done
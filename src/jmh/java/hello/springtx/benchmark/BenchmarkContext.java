@@ -0,0 +1,43 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.SpringTxApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 벤치마크용 스프링 컨텍스트: 내장 H2(MySQL 모드)로 띄우고, application.properties 의 TRACE/DEBUG 로그는 끈다.
+// (벤치마크 클래스의 설정 확인 로그만 INFO 로 남긴다.)
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String name, String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "spring.main.web-application-type=none",
+                "spring.main.banner-mode=off",
+                "spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username=sa",
+                "spring.datasource.password=",
+                "spring.datasource.driver-class-name=org.h2.Driver",
+                "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto=create-drop",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "logging.level.hello.springtx=WARN",
+                "logging.level.hello.springtx.benchmark=INFO",
+                "logging.level.org.springframework.transaction.interceptor=WARN",
+                "logging.level.org.springframework.jdbc.datasource.DataSourceTransactionManager=WARN",
+                "logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                "logging.level.org.hibernate.resource.transaction=WARN",
+                "logging.level.org.hibernate.SQL=WARN"
+        ));
+        args.addAll(List.of(properties));
+
+        // 커맨드라인 인자로 넘겨야 application.properties 보다 우선한다.
+        return new SpringApplicationBuilder(SpringTxApplication.class)
+                .run(args.stream().map(arg -> "--" + arg).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,89 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 요청(트랜잭션) 하나당 히카리 커넥션 체크아웃 횟수: checkouts(이벤트 수) / 처리량
+@State(Scope.Benchmark)
+public class ConnectionCheckoutBenchmark {
+
+    @Param({"false", "true"})
+    boolean lazy;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    MemberRepository memberRepository;
+    Timer acquire;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("connectionCheckoutBenchmark",
+                "spring-tx.datasource.lazy-connection.enabled=" + lazy);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        memberRepository = context.getBean(MemberRepository.class);
+        acquire = context.getBean(MeterRegistry.class).get("hikaricp.connections.acquire").timer();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // SQL 을 실행하지 않는 트랜잭션 (TxBasicTest.BasicService.tx)
+    @Benchmark
+    public void noSql(Checkouts checkouts) {
+        transactionTemplate.executeWithoutResult(status -> {
+        });
+        checkouts.record(acquire);
+    }
+
+    // 10번 중 1번만 실제로 쓰는 "maybe-write" 트랜잭션
+    @Benchmark
+    public void maybeWrite(Checkouts checkouts) {
+        long n = sequence.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (n % 10 == 0) {
+                memberRepository.save(new Member("checkout_" + n));
+            }
+        });
+        checkouts.record(acquire);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Checkouts {
+        public long checkouts;
+        private long last = -1;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            checkouts = 0;
+            last = -1;
+        }
+
+        void record(Timer acquire) {
+            long now = acquire.count();
+            if (last >= 0) {
+                checkouts += now - last;
+            }
+            last = now;
+        }
+    }
+}
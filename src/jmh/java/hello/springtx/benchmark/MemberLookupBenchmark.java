@@ -0,0 +1,114 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 변경 전(JPQL 문자열로 createQuery)과 네임드 쿼리(MemberRepository.find)의 조회 비용 비교
+// parses: 쿼리 플랜 캐시 미스(JPQL 파싱) 횟수 / 처리량 -> 조회 한 번당 파싱 횟수
+// MySQL 서버 측 prepared statement 캐시(fastpath 프로필의 URL 옵션)는 H2 에서 측정할 수 없다. -> FastPathProfileTest
+@State(Scope.Benchmark)
+public class MemberLookupBenchmark {
+
+    static final int MEMBERS = 1_000;
+    static final String JPQL = "SELECT m FROM Member m WHERE m.username = :username";
+
+    @Param({"true", "false"})
+    boolean planCache;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    EntityManager em;
+    TransactionTemplate readOnlyTx;
+    Statistics statistics;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("memberLookupBenchmark",
+                "spring.jpa.properties.hibernate.query.plan_cache_enabled=" + planCache,
+                "spring.jpa.properties.hibernate.generate_statistics=true");
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        PlatformTransactionManager txManager = context.getBean(PlatformTransactionManager.class);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("lookup_" + i));
+        }
+        memberRepository.saveAll(members);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Member> createQuery(Parses parses) {
+        String username = nextUsername();
+        Optional<Member> member = readOnlyTx.execute(status -> em
+                .createQuery(JPQL, Member.class)
+                .setParameter("username", username)
+                .setMaxResults(1)
+                .getResultList().stream().findAny());
+        parses.record(statistics);
+        return member;
+    }
+
+    @Benchmark
+    public Optional<Member> namedQuery(Parses parses) {
+        Optional<Member> member = memberRepository.find(nextUsername());
+        parses.record(statistics);
+        return member;
+    }
+
+    private String nextUsername() {
+        return "lookup_" + (sequence.incrementAndGet() % MEMBERS);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Parses {
+        public long parses;
+        private long last = -1;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            parses = 0;
+            last = -1;
+        }
+
+        void record(Statistics statistics) {
+            long now = statistics.getQueryPlanCacheMissCount();
+            if (last >= 0) {
+                parses += now - last;
+            }
+            last = now;
+        }
+    }
+}
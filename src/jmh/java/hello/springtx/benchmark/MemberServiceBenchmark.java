@@ -0,0 +1,62 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+public class MemberServiceBenchmark {
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    MemberRepository memberRepository;
+    LogRepository logRepository;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("memberServiceBenchmark");
+        memberService = context.getBean(MemberService.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        logRepository = context.getBean(LogRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // memberService @Tx:ON, logRepository REQUIRES_NEW
+    @Benchmark
+    public void joinV1() {
+        memberService.joinV1(nextUsername());
+    }
+
+    @Benchmark
+    public void joinV2() {
+        memberService.joinV2(nextUsername());
+    }
+
+    // memberService @Tx:OFF -> 각 리포지토리가 자기 트랜잭션을 연다.
+    @Benchmark
+    public void withoutOuterTx() {
+        String username = nextUsername();
+        memberRepository.save(new Member(username));
+        logRepository.save(new Log(username));
+    }
+
+    private String nextUsername() {
+        return "bench_" + sequence.incrementAndGet();
+    }
+}
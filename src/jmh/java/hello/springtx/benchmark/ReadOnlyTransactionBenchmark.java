@@ -0,0 +1,85 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 회원 100k 건을 한 트랜잭션에서 읽는 비용
+// readWrite    엔티티 + 스냅샷, 커밋 시 flush 에서 100k 건 더티 체킹
+// readOnly     엔티티만 (스냅샷/flush 없음)
+// projection   MemberView (영속성 컨텍스트에 올리지 않음)
+// 메모리는 gc 프로파일러의 gc.alloc.rate.norm (op 당 할당 바이트) 로 비교한다.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlyTransactionBenchmark {
+
+    static final int MEMBERS = 100_000;
+    static final int CHUNK_SIZE = 1_000;
+
+    @Param({"readWrite", "readOnly", "projection"})
+    String mode;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    EntityManager em;
+    TransactionTemplate readWrite;
+    TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("readOnlyTransactionBenchmark");
+        memberRepository = context.getBean(MemberRepository.class);
+        em = context.getBean(EntityManager.class);
+        PlatformTransactionManager txManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(txManager);
+        readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+
+        for (int i = 0; i < MEMBERS; i += CHUNK_SIZE) {
+            List<Member> members = new ArrayList<>(CHUNK_SIZE);
+            for (int j = i; j < i + CHUNK_SIZE; j++) {
+                members.add(new Member("readOnly_" + j));
+            }
+            memberRepository.saveAll(members);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int load() {
+        return switch (mode) {
+            case "readWrite" -> readWrite.execute(status -> loadEntities());
+            case "readOnly" -> readOnly.execute(status -> loadEntities());
+            case "projection" -> memberRepository.findViews(0, MEMBERS).size();
+            default -> throw new IllegalArgumentException(mode);
+        };
+    }
+
+    private int loadEntities() {
+        List<Member> members = em.createQuery("SELECT m FROM Member m ORDER BY m.id", Member.class)
+                .setMaxResults(MEMBERS)
+                .getResultList();
+        return members.size();
+    }
+}
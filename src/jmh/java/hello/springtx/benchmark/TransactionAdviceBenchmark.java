@@ -0,0 +1,87 @@
+package hello.springtx.benchmark;
+
+import hello.springtx.propagation.MemberService;
+import hello.springtx.weaving.WovenTransactionCondition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 트랜잭션 프록시 vs AspectJ 컴파일 타임 위빙의 호출 오버헤드
+// ./gradlew jmh -PjmhInclude=TransactionAdviceBenchmark                   (프록시)
+// ./gradlew jmh -PjmhInclude=TransactionAdviceBenchmark -PaspectjWeaving  (위빙)
+@State(Scope.Benchmark)
+public class TransactionAdviceBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionAdviceBenchmark.class);
+
+    ConfigurableApplicationContext context;
+    BasicService basicService;
+    MemberService memberService;
+
+    final AtomicLong sequence = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("transactionAdviceBenchmark");
+        // 프록시 모드에서는 빈 후처리기가 프록시를 씌우도록 컨테이너를 통해 만든다.
+        basicService = context.getAutowireCapableBeanFactory().createBean(BasicService.class);
+        memberService = context.getBean(MemberService.class);
+        log.info("advice mode = {}, basicService = {}",
+                WovenTransactionCondition.isWoven(BasicService.class) ? "aspectj" : "proxy",
+                basicService.getClass().getName());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // TxBasicTest.BasicService.tx()
+    @Benchmark
+    public boolean emptyTx() {
+        return basicService.tx();
+    }
+
+    // 기준선: 트랜잭션 없는 메서드도 프록시를 거친다.
+    @Benchmark
+    public boolean nonTx() {
+        return basicService.nonTx();
+    }
+
+    // 프록시 모드에서는 내부 호출이라 트랜잭션이 없고, 위빙 모드에서는 트랜잭션이 열린다.
+    @Benchmark
+    public boolean selfInvocation() {
+        return basicService.external();
+    }
+
+    // memberService @Tx:ON, logRepository REQUIRES_NEW
+    @Benchmark
+    public void joinV1() {
+        memberService.joinV1("advice_" + sequence.incrementAndGet());
+    }
+
+    public static class BasicService {
+
+        @Transactional
+        public boolean tx() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        public boolean nonTx() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        public boolean external() {
+            return tx();
+        }
+    }
+}
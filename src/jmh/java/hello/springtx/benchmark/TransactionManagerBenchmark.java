@@ -0,0 +1,91 @@
+package hello.springtx.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+
+// BasicTxTest 의 시나리오를 트랜잭션 매니저 종류별로 측정한다.
+@State(Scope.Benchmark)
+public class TransactionManagerBenchmark {
+
+    @Param({"jpa", "datasource"})
+    String txManager;
+
+    ConfigurableApplicationContext context;
+    PlatformTransactionManager txm;
+
+    final DefaultTransactionDefinition required = new DefaultTransactionDefinition();
+    final DefaultTransactionDefinition readOnly = new DefaultTransactionDefinition();
+    final DefaultTransactionDefinition requiresNew =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    final DefaultTransactionDefinition nested =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NESTED);
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start("txManagerBenchmark");
+        readOnly.setReadOnly(true);
+        txm = switch (txManager) {
+            case "jpa" -> context.getBean(JpaTransactionManager.class);
+            case "datasource" -> new DataSourceTransactionManager(context.getBean(DataSource.class));
+            default -> throw new IllegalArgumentException(txManager);
+        };
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // BasicTxTest.commit
+    @Benchmark
+    public void beginCommit() {
+        TransactionStatus status = txm.getTransaction(required);
+        txm.commit(status);
+    }
+
+    @Benchmark
+    public void beginCommitReadOnly() {
+        TransactionStatus status = txm.getTransaction(readOnly);
+        txm.commit(status);
+    }
+
+    // BasicTxTest.inner_commit: 내부 트랜잭션이 외부 물리 트랜잭션에 참여
+    @Benchmark
+    public void innerRequired() {
+        TransactionStatus outer = txm.getTransaction(required);
+        TransactionStatus inner = txm.getTransaction(required);
+        txm.commit(inner);
+        txm.commit(outer);
+    }
+
+    // BasicTxTest.inner_rollback_requires_new: 외부 트랜잭션을 보류하고 커넥션을 하나 더 획득
+    @Benchmark
+    public void innerRequiresNew() {
+        TransactionStatus outer = txm.getTransaction(required);
+        TransactionStatus inner = txm.getTransaction(requiresNew);
+        txm.commit(inner);
+        txm.commit(outer);
+    }
+
+    // 같은 커넥션에서 세이브포인트 생성/해제
+    @Benchmark
+    public void innerNested() {
+        TransactionStatus outer = txm.getTransaction(required);
+        TransactionStatus inner = txm.getTransaction(nested);
+        txm.commit(inner);
+        txm.commit(outer);
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.admission")
+public class AdmissionProperties {
+
+    // 0 이면 히카리 maximumPoolSize / connectionsPerRequest 로 계산 (히카리 풀을 찾지 못하면 시작 실패)
+    private int maxConcurrent = 0;
+
+    // joinV1 은 외부 트랜잭션 + logRepository.save(REQUIRES_NEW) 로 커넥션 2개를 동시에 사용한다.
+    private int connectionsPerRequest = 2;
+
+    private Duration timeout = Duration.ofSeconds(5);
+}
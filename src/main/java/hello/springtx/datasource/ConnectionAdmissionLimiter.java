@@ -0,0 +1,50 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// 동시에 트랜잭션 작업을 수행할 수 있는 요청 수를 커넥션 풀 크기에 맞춰 제한한다.
+// 가상 스레드는 사실상 무제한으로 생성되므로, 제한이 없으면 모든 요청이 히카리 풀 앞에서 대기하다 connectionTimeout 으로 실패한다.
+// -> 세마포어에서 대기하는 가상 스레드는 캐리어 스레드에서 내려오므로(unmount) 캐리어를 점유하지 않는다.
+//
+// 풀 크기는 DataSource 를 unwrap 해서 히카리 풀에서 읽는다. (LazyConnectionDataSourceProxy, 레플리카 라우팅은 프라이머리 풀)
+// 히카리 풀을 찾지 못하면 추측하지 않고 시작을 실패시킨다. -> spring-tx.admission.max-concurrent 를 직접 설정해야 한다.
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConnectionAdmissionLimiter {
+
+    private final Semaphore permits;
+    private final long timeoutNanos;
+
+    public ConnectionAdmissionLimiter(DataSource dataSource, AdmissionProperties properties) throws SQLException {
+        int maxConcurrent = properties.getMaxConcurrent();
+        if (maxConcurrent <= 0) {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                throw new IllegalStateException("히카리 풀을 찾을 수 없어 입장 제한을 계산할 수 없습니다. "
+                        + "spring-tx.admission.max-concurrent 를 설정하세요. dataSource: " + dataSource);
+            }
+            int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            maxConcurrent = Math.max(1, poolSize / properties.getConnectionsPerRequest());
+        }
+        log.info("트랜잭션 동시 실행 제한: {}", maxConcurrent);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.timeoutNanos = properties.getTimeout().toNanos();
+    }
+
+    public boolean tryAcquire() throws InterruptedException {
+        return permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
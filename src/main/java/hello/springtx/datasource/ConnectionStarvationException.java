@@ -0,0 +1,11 @@
+package hello.springtx.datasource;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+// 커넥션 풀의 모든 커넥션이 새 커넥션을 기다리는 외부 트랜잭션에 점유되어, 기다려도 커넥션을 얻을 수 없는 경우
+public class ConnectionStarvationException extends CannotCreateTransactionException {
+
+    public ConnectionStarvationException(String msg) {
+        super(msg);
+    }
+}
@@ -0,0 +1,138 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+// joinV1 은 외부 트랜잭션의 커넥션을 쥔 채로 logRepository.save(REQUIRES_NEW) 에서 커넥션을 하나 더 요청한다.
+// 풀 크기 N 에 동시 요청이 N 개면 모든 커넥션이 외부 트랜잭션에 점유되고, 모두가 내부 트랜잭션용 커넥션을 기다린다.
+// -> 아무도 커넥션을 반납하지 않으므로 connectionTimeout 까지 전부 멈춘다.
+//
+// 스레드별로 물리 트랜잭션(커넥션) 보유 수를 기록하고, 커넥션을 쥔 채로 새 트랜잭션을 시작하는 스레드를 추적한다.
+// LOG          교착 상태가 되는 요청을 감지하면 진단 로그만 남긴다.
+// FAIL_FAST    교착 상태를 만드는 마지막 요청을 즉시 실패시킨다. -> 외부 트랜잭션이 롤백되며 커넥션을 반납하므로 나머지는 진행된다.
+// RESERVE_POOL 커넥션을 쥔 채로 시작하는 내부 트랜잭션은 예비 풀(ReservePoolDataSource)에서 커넥션을 얻는다.
+//
+// 커넥션은 트랜잭션 시작(doBegin) 시점에 얻는다고 가정한다. (지연 커넥션과는 함께 쓸 수 없다 -> StarvationGuardConfig 가 시작 시점에 실패시킨다.)
+
+@Slf4j
+public class ConnectionStarvationGuard implements TransactionExecutionListener {
+
+    public enum Mode {
+        LOG,
+        FAIL_FAST,
+        RESERVE_POOL
+    }
+
+    // ReservePoolDataSource 가 커넥션 요청을 예비 풀로 보낼지 판단한다. (beforeBegin ~ afterBegin 사이에만 true)
+    private static final ThreadLocal<Boolean> reserveRequested = new ThreadLocal<>();
+
+    private final int maximumPoolSize;
+
+    @Getter
+    @Setter
+    private volatile Mode mode;
+
+    private final ThreadLocal<int[]> holdings = ThreadLocal.withInitial(() -> new int[1]);
+    // 커넥션을 쥔 채로 새 커넥션을 기다리는 스레드 -> 보유한 커넥션 수
+    private final Map<Thread, Integer> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger heldByWaiters = new AtomicInteger();
+
+    public ConnectionStarvationGuard(DataSource dataSource, Mode mode) throws SQLException {
+        // 풀 크기를 모르면 교착 상태를 감지할 수 없다 -> 가드가 켜진 것처럼 보이지 않도록 실패한다.
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            throw new IllegalStateException("히카리 풀을 찾을 수 없습니다: " + dataSource.getClass().getName());
+        }
+        this.maximumPoolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        this.mode = mode;
+    }
+
+    static boolean isReserveRequested() {
+        return reserveRequested.get() != null;
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        // NESTED 는 같은 커넥션의 세이브포인트를 사용한다.
+        int held = holdings.get()[0];
+        if (transaction.isNested() || held == 0) {
+            return;
+        }
+
+        Mode current = mode;
+        if (current == Mode.RESERVE_POOL) {
+            reserveRequested.set(Boolean.TRUE);
+            return;
+        }
+
+        waiters.put(Thread.currentThread(), held);
+        if (heldByWaiters.addAndGet(held) < maximumPoolSize) {
+            return;
+        }
+
+        // 풀의 모든 커넥션이 새 커넥션을 기다리는 스레드에 점유되어 있다.
+        String diagnostic = diagnostic(transaction);
+        if (current == Mode.LOG) {
+            log.warn(diagnostic);
+            return;
+        }
+        leave();
+        log.warn(diagnostic);
+        throw new ConnectionStarvationException(diagnostic);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        reserveRequested.remove();
+        if (waiters.containsKey(Thread.currentThread())) {
+            leave();
+        }
+        if (beginFailure == null && !transaction.isNested()) {
+            holdings.get()[0]++;
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        release(transaction);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        release(transaction);
+    }
+
+    private void release(TransactionExecution transaction) {
+        int[] held = holdings.get();
+        if (!transaction.isNested() && held[0] > 0) {
+            held[0]--;
+        }
+    }
+
+    private void leave() {
+        Integer held = waiters.remove(Thread.currentThread());
+        if (held != null) {
+            heldByWaiters.addAndGet(-held);
+        }
+    }
+
+    private String diagnostic(TransactionExecution transaction) {
+        String waiting = waiters.entrySet().stream()
+                .map(entry -> entry.getKey().getName() + "(보유 " + entry.getValue() + ")")
+                .collect(Collectors.joining(", "));
+        return "커넥션 풀 고갈 감지: 최대 " + maximumPoolSize + "개 커넥션이 모두 새 커넥션을 기다리는 외부 트랜잭션에 점유됨"
+                + " [요청 트랜잭션: " + transaction.getTransactionName() + ", 대기 스레드: " + waiting + "]"
+                + " -> 풀 크기를 동시 요청 수 x 트랜잭션당 커넥션 수 이상으로 늘리거나, NESTED 또는 RESERVE_POOL 모드를 사용한다.";
+    }
+}
@@ -0,0 +1,35 @@
+package hello.springtx.datasource;
+
+import hello.springtx.metrics.ConnectionAcquisitionRecorder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// 트랜잭션 매니저는 트랜잭션 시작 시점에 풀에서 커넥션을 꺼내고 setAutoCommit(false), 격리 수준, readOnly 를 설정한다.
+// LazyConnectionDataSourceProxy 는 이 설정을 기록만 해두고, 첫 SQL 을 실행할 때 실제 커넥션을 꺼내서 적용한다.
+// -> SQL 을 한 번도 실행하지 않은 트랜잭션은 커넥션을 꺼내지 않고, commit/rollback 도 아무 일도 하지 않는다.
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.datasource.lazy-connection", name = "enabled", havingValue = "true")
+public class LazyConnectionConfig {
+
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // 레플리카 라우팅(ReplicaRoutingConfig)이 켜져 있으면 이미 감싸져 있다.
+                if ("dataSource".equals(beanName)
+                        && bean instanceof DataSource dataSource
+                        && !(bean instanceof LazyConnectionDataSourceProxy)) {
+                    return new LazyConnectionDataSourceProxy(new ConnectionAcquisitionRecorder(dataSource));
+                }
+                return bean;
+            }
+        };
+    }
+}
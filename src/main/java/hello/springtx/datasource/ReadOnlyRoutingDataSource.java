@@ -0,0 +1,99 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 읽기 전용 트랜잭션은 레플리카, 그 외(쓰기 트랜잭션, 트랜잭션 밖)는 프라이머리로 커넥션을 요청한다.
+// 트랜잭션 매니저는 트랜잭션 시작(doBegin) 시점에 커넥션을 얻고, 그 뒤에 readOnly 여부를 동기화 매니저에 등록한다.
+// -> 반드시 LazyConnectionDataSourceProxy 로 감싸서 첫 SQL 실행 시점에 라우팅되도록 사용한다.
+
+public class ReadOnlyRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum LoadBalance {
+        ROUND_ROBIN,
+        // 활성 커넥션이 가장 적은 레플리카 (HikariDataSource 만 지원, 나머지는 0으로 본다)
+        LEAST_CONNECTIONS
+    }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final LoadBalance loadBalance;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadOnlyRoutingDataSource(DataSource primary, List<DataSource> replicas, LoadBalance loadBalance) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.loadBalance = loadBalance;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return determineDataSource().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return determineDataSource().getConnection(username, password);
+    }
+
+    // 풀 설정을 찾는 쪽(입장 제한, 워밍업)은 쓰기 트랜잭션이 사용하는 프라이머리 풀을 본다.
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return (T) this;
+        }
+        return primary.unwrap(iface);
+    }
+
+    DataSource determineDataSource() {
+        if (replicas.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary;
+        }
+        if (replicas.size() == 1) {
+            return replicas.get(0);
+        }
+        return switch (loadBalance) {
+            case ROUND_ROBIN -> replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+            case LEAST_CONNECTIONS -> replicas.stream()
+                    .min(Comparator.comparingInt(ReadOnlyRoutingDataSource::activeConnections))
+                    .orElseThrow();
+        };
+    }
+
+    private static int activeConnections(DataSource dataSource) {
+        if (dataSource instanceof HikariDataSource hikari) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+        return 0;
+    }
+
+    // 프라이머리는 빈으로 등록되어 스프링이 닫는다. 레플리카 풀만 정리한다.
+    @Override
+    public void close() {
+        for (DataSource replica : replicas) {
+            if (replica instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("레플리카 종료 실패", e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package hello.springtx.datasource;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Supplier;
+
+// 트랜잭션 밖의 조회를 레플리카 라우팅에 맞춰 실행한다.
+// ReadOnlyRoutingDataSource 는 읽기 전용 트랜잭션만 레플리카로 보내므로 라우팅이 켜져 있을 때만 읽기 전용 트랜잭션을 연다.
+// - 라우팅이 꺼져 있으면 트랜잭션 없이 조회한다. (begin/commit 과 커넥션 설정 변경 round-trip 이 없다)
+// - 이미 트랜잭션 안이면 그 트랜잭션에 참여한다. (쓰기 트랜잭션 안이면 프라이머리)
+// 메서드에 @Transactional(readOnly = true) 를 붙이면 캐시 히트처럼 DB 에 가지 않는 호출도 트랜잭션을 시작하므로,
+// 캐시를 먼저 확인하고 DB 로 가는 경로에서만 이 클래스를 거친다.
+
+@Component
+public class ReplicaReader {
+
+    private final boolean routingEnabled;
+    private final TransactionTemplate readOnlyTx;
+
+    public ReplicaReader(ReplicaRoutingProperties properties, PlatformTransactionManager txManager) {
+        this.routingEnabled = properties.isEnabled();
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public <T> T read(Supplier<T> query) {
+        if (!routingEnabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        return readOnlyTx.execute(status -> query.get());
+    }
+}
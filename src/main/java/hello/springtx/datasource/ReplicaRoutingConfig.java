@@ -0,0 +1,54 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.metrics.ConnectionAcquisitionRecorder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// spring.datasource.* 는 프라이머리, spring-tx.datasource.routing.replicas[n].* 는 레플리카
+// JPA/트랜잭션 매니저는 @Primary 인 LazyConnectionDataSourceProxy 를 사용한다.
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadOnlyRoutingDataSource routingDataSource(HikariDataSource primaryDataSource, ReplicaRoutingProperties properties) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaRoutingProperties.Replica replica = properties.getReplicas().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            replicas.add(dataSource);
+        }
+        return new ReadOnlyRoutingDataSource(primaryDataSource, replicas, properties.getLoadBalance());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadOnlyRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(new ConnectionAcquisitionRecorder(routingDataSource));
+    }
+}
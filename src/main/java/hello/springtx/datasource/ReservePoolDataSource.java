@@ -0,0 +1,42 @@
+package hello.springtx.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// ConnectionStarvationGuard 가 RESERVE_POOL 모드에서 예비 풀을 요청한 경우(커넥션을 쥔 채로 시작하는 내부 트랜잭션)만 예비 풀을 사용한다.
+// 예비 풀의 커넥션을 가진 트랜잭션은 또 다른 커넥션을 기다리지 않으므로(REQUIRES_NEW 한 단계) 반드시 반납된다.
+
+public class ReservePoolDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final DataSource reserve;
+
+    public ReservePoolDataSource(DataSource primary, DataSource reserve) {
+        super(primary);
+        this.reserve = reserve;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return ConnectionStarvationGuard.isReserveRequested() ? reserve.getConnection() : super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return ConnectionStarvationGuard.isReserveRequested()
+                ? reserve.getConnection(username, password)
+                : super.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (reserve instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
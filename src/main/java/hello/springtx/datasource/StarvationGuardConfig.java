@@ -0,0 +1,62 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// 가드는 TransactionExecutionListener 빈이므로 스프링 부트가 트랜잭션 매니저에 자동 등록한다.
+// 예비 풀은 런타임에 모드를 바꿀 수 있도록 활성화 시 항상 감싸두고, 첫 요청 시점에 커넥션을 만든다.
+// 가드는 dataSource 빈이 히카리 풀 하나이고 트랜잭션 시작 시점에 커넥션을 얻는 구성에서만 맞게 동작한다.
+// 지연 커넥션(lazy-connection), 레플리카 라우팅, 샤드 라우팅과 함께 켜면 조용히 무시하지 않고 시작 시점에 실패한다.
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.datasource.starvation-guard", name = "enabled", havingValue = "true")
+public class StarvationGuardConfig {
+
+    @Bean
+    public ConnectionStarvationGuard connectionStarvationGuard(DataSource dataSource, StarvationGuardProperties properties)
+            throws SQLException {
+        if (dataSource.isWrapperFor(LazyConnectionDataSourceProxy.class)) {
+            throw new IllegalStateException("starvation-guard 는 지연 커넥션(lazy-connection, 레플리카 라우팅)과 함께 쓸 수 없습니다: "
+                    + "커넥션을 트랜잭션 시작 시점에 얻지 않으므로 보유 수를 셀 수 없고 예비 풀로 보낼 수도 없습니다.");
+        }
+        if (!dataSource.isWrapperFor(ReservePoolDataSource.class)) {
+            throw new IllegalStateException("starvation-guard 를 적용할 히카리 풀을 찾을 수 없습니다: "
+                    + dataSource.getClass().getName() + " (dataSource 빈이 HikariDataSource 여야 합니다. 샤드 라우팅과는 함께 쓸 수 없습니다.)");
+        }
+        return new ConnectionStarvationGuard(dataSource, properties.getMode());
+    }
+
+    @Bean
+    public static BeanPostProcessor reservePoolDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof HikariDataSource primary)) {
+                    return bean;
+                }
+                StarvationGuardProperties properties = Binder.get(environment)
+                        .bindOrCreate("spring-tx.datasource.starvation-guard", StarvationGuardProperties.class);
+
+                // 설정은 프라이머리와 같고 크기만 다른 풀 (new HikariDataSource() 는 첫 getConnection 에서 풀을 시작한다)
+                HikariDataSource reserve = new HikariDataSource();
+                primary.copyStateTo(reserve);
+                reserve.setPoolName((primary.getPoolName() == null ? "HikariPool" : primary.getPoolName()) + "-reserve");
+                reserve.setMaximumPoolSize(properties.getReservePoolSize());
+                reserve.setMinimumIdle(0);
+                log.info("내부 트랜잭션 예비 풀: {}개", properties.getReservePoolSize());
+                return new ReservePoolDataSource(primary, reserve);
+            }
+        };
+    }
+}
@@ -0,0 +1,18 @@
+package hello.springtx.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.datasource.starvation-guard")
+public class StarvationGuardProperties {
+
+    private boolean enabled = false;
+
+    private ConnectionStarvationGuard.Mode mode = ConnectionStarvationGuard.Mode.FAIL_FAST;
+
+    // RESERVE_POOL 모드에서 내부 트랜잭션(REQUIRES_NEW)만 사용하는 예비 풀의 크기
+    private int reservePoolSize = 2;
+}
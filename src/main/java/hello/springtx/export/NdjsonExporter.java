@@ -0,0 +1,101 @@
+package hello.springtx.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.MemberRepository;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// 테이블 전체를 한 줄에 JSON 하나(NDJSON)로 출력한다.
+// 읽기 전용 트랜잭션 하나에서 리포지토리 스트림을 읽으면서 바로 쓴다. -> 한 번에 메모리에 있는 행은 fetchSize 건 정도
+// 출력이 느리면(클라이언트가 천천히 읽으면) write 가 블로킹되고, 그동안 커서에서 다음 행을 가져오지 않는다.
+//
+// MySQL Connector/J 는 기본으로 결과 전체를 메모리에 읽는다.
+// - useCursorFetch=true 는 fetch size 를 지키지만 URL 전역 설정이라 모든 statement 가 서버 prepared statement 가 된다.
+// - 대신 export 쿼리에만 fetchSize=Integer.MIN_VALUE 를 줘서 행 단위 스트리밍을 쓴다. (forward-only, read-only 결과셋에서만 동작)
+//   스트리밍 중에는 같은 커넥션에서 다른 쿼리를 실행할 수 없는데, export 트랜잭션은 스트림만 읽으므로 문제없다.
+
+@Slf4j
+@Component
+public class NdjsonExporter {
+
+    public static final int FETCH_SIZE = 1_000;
+    // 이 건수마다 출력 버퍼를 비운다.
+    private static final int FLUSH_ROWS = 1_000;
+
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTx;
+    private final int fetchSize;
+
+    public NdjsonExporter(MemberRepository memberRepository,
+                          LogRepository logRepository,
+                          ObjectMapper objectMapper,
+                          PlatformTransactionManager txManager,
+                          EntityManagerFactory emf) {
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.fetchSize = fetchSize(emf);
+    }
+
+    private static int fetchSize(EntityManagerFactory emf) {
+        if (emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect() instanceof MySQLDialect) {
+            return Integer.MIN_VALUE;
+        }
+        return FETCH_SIZE;
+    }
+
+    // 반환값: 출력한 행 수
+    public long exportMembers(OutputStream out) {
+        return export(out, memberRepository::streamAll);
+    }
+
+    public long exportLogs(OutputStream out) {
+        return export(out, logRepository::streamAll);
+    }
+
+    private <T> long export(OutputStream out, Function<Integer, Stream<T>> query) {
+        Long rows = readOnlyTx.execute(status -> {
+            try (Stream<T> stream = query.apply(fetchSize);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(new SerializedString("\n"));
+
+                long count = 0;
+                for (T row : (Iterable<T>) stream::iterator) {
+                    generator.writeObject(row);
+                    if (++count % FLUSH_ROWS == 0) {
+                        generator.flush();
+                    }
+                }
+                if (count > 0) {
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                return count;
+            } catch (IOException e) {
+                // 클라이언트가 연결을 끊은 경우 -> 트랜잭션(커서)을 정리하고 종료
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("export 완료: {}건", rows);
+        return rows == null ? 0 : rows;
+    }
+}
@@ -0,0 +1,122 @@
+package hello.springtx.jpa;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+// Member/Log id 시퀀스를 pooled-lo 전용 시퀀스(member_id_seq, log_id_seq)로 옮긴다.
+// 이전 버전은 member_seq/log_seq 를 pooled(값 = 블록의 끝) + 50 으로 썼다. 같은 시퀀스를 pooled-lo(값 = 블록의 시작) + 100 으로 쓰면
+// 롤링 배포 중 섞인 노드끼리 id 블록이 겹친다. -> 새 버전은 새 시퀀스를 쓰고, 이전 노드는 이전 시퀀스를 그대로 쓴다.
+// -> EntityManagerFactory 보다 먼저 실행한다. (SchemaMigrationConfig, ddl-auto 가 새 시퀀스를 1부터 만들기 전에)
+//
+// 새 시퀀스가 없고 이전 시퀀스나 테이블이 있으면, 새 시퀀스를 max(이전 시퀀스 값, max(id) + 1) + ROLLING_DEPLOY_HEADROOM 에서 시작한다.
+// 배포 중에도 이전 노드는 이전 시퀀스에서 계속 id 를 받는다. 그 수가 ROLLING_DEPLOY_HEADROOM 보다 적으면 새 노드의 id 와 겹치지 않는다.
+// 이미 옮겨진 DB 나 새 DB 에서는 아무것도 하지 않는다. (새 DB 는 ddl-auto 가 1부터 만든다.)
+// 샤드 모드에서는 모든 샤드를 차례로 옮긴다.
+
+@Slf4j
+@RequiredArgsConstructor
+public class IdSequenceMigration implements InitializingBean {
+
+    static final String LEGACY_MEMBER_SEQUENCE = "member_seq";
+    static final String LEGACY_LOG_SEQUENCE = "log_seq";
+    // 배포가 끝날 때까지 이전 노드가 이전 시퀀스에서 받을 수 있는 id 수
+    static final long ROLLING_DEPLOY_HEADROOM = 1_000_000;
+
+    private static final List<Target> TARGETS = List.of(
+            new Target("member", LEGACY_MEMBER_SEQUENCE, Member.ID_SEQUENCE, Member.ID_BLOCK_SIZE),
+            new Target("log", LEGACY_LOG_SEQUENCE, Log.ID_SEQUENCE, Log.ID_BLOCK_SIZE));
+
+    private final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        for (DataSource target : MemberSchemaMigration.targets(dataSource)) {
+            for (Target sequence : TARGETS) {
+                migrate(target, sequence);
+            }
+        }
+    }
+
+    private static void migrate(DataSource dataSource, Target target) throws SQLException {
+        boolean sequenceTable;
+        boolean hasLegacySequence;
+        boolean hasTable;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // MySQL 은 시퀀스가 없어서 하이버네이트가 next_val 컬럼 하나짜리 테이블로 만든다. (PooledLoIdAllocator 와 같은 판단)
+            String database = metaData.getDatabaseProductName();
+            sequenceTable = database.contains("MySQL") || database.contains("MariaDB");
+            if (exists(connection, sequenceTable, target.sequence())) {
+                return;
+            }
+            hasLegacySequence = exists(connection, sequenceTable, target.legacySequence());
+            hasTable = hasTable(connection, target.table());
+        }
+        if (!hasLegacySequence && !hasTable) {
+            return;
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        long highWater = 1;
+        if (hasLegacySequence) {
+            // pooled 의 시퀀스 값은 이미 할당된 블록의 끝 이후다. (테이블은 다음 값, 시퀀스는 다음 값을 하나 받는다.)
+            Long legacy = jdbcTemplate.queryForObject(sequenceTable
+                    ? "SELECT MAX(next_val) FROM " + target.legacySequence()
+                    : "SELECT NEXT VALUE FOR " + target.legacySequence(), Long.class);
+            highWater = Math.max(highWater, legacy == null ? 1 : legacy);
+        }
+        if (hasTable) {
+            Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + target.table(), Long.class);
+            highWater = Math.max(highWater, maxId == null ? 1 : maxId + 1);
+        }
+        long start = highWater + ROLLING_DEPLOY_HEADROOM;
+
+        // 여러 노드가 동시에 기동해도 먼저 만든 쪽의 시작값을 쓴다.
+        if (sequenceTable) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + target.sequence() + " (next_val BIGINT)");
+            jdbcTemplate.update("INSERT INTO " + target.sequence() + " (next_val) SELECT ? FROM DUAL"
+                    + " WHERE NOT EXISTS (SELECT * FROM " + target.sequence() + ")", start);
+        } else {
+            jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + target.sequence()
+                    + " START WITH " + start + " INCREMENT BY " + target.blockSize());
+        }
+        log.info("{} 생성, 시작값 {} ({} 이후 {})", target.sequence(), start, target.legacySequence(), ROLLING_DEPLOY_HEADROOM);
+    }
+
+    private static boolean exists(Connection connection, boolean sequenceTable, String sequence) throws SQLException {
+        if (sequenceTable) {
+            return hasTable(connection, sequence);
+        }
+        DatabaseMetaData metaData = connection.getMetaData();
+        try (var statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?")) {
+            statement.setString(1, metaData.storesUpperCaseIdentifiers() ? sequence.toUpperCase(Locale.ROOT) : sequence);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getLong(1) > 0;
+            }
+        }
+    }
+
+    private static boolean hasTable(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+            return tables.next();
+        }
+    }
+
+    private record Target(String table, String legacySequence, String sequence, int blockSize) {
+    }
+}
@@ -0,0 +1,25 @@
+package hello.springtx.jpa;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+// JpaTransactionManager 는 EntityManagerFactory 에 설정된 JpaDialect 를 가져다 쓰므로 팩토리 빈 초기화 전에 교체한다.
+
+@Configuration
+public class JpaSavepointConfig {
+
+    @Bean
+    public static BeanPostProcessor savepointJpaDialectPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof LocalContainerEntityManagerFactoryBean entityManagerFactory) {
+                    entityManagerFactory.setJpaDialect(new SavepointHibernateJpaDialect());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package hello.springtx.jpa;
+
+import hello.springtx.shard.ShardRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+// 기존 member 테이블을 username 유니크 제약(uk_member_username) + @Version 컬럼 구조로 옮긴다.
+// ddl-auto=update 는 중복 username 이 이미 있으면 제약 생성에 실패해도 경고만 남기고 넘어가고(-> joinV7 중복 제거가 동작하지 않는다),
+// 새로 추가한 version 컬럼은 기존 행에서 NULL 이다.
+// -> EntityManagerFactory 보다 먼저 실행한다. (SchemaMigrationConfig)
+//
+// 1. version 컬럼이 없으면 추가하고 기존 행을 0 으로 채운다. (컬럼을 추가한 기동에서만)
+// 2. uk_member_username 제약이 없으면 추가한다.
+//    username 이 중복된 행이 있으면 회원 행을 지우지 않고 중복 username 목록과 함께 기동을 실패시킨다.
+//    운영자가 남길 행을 정해서 정리한 뒤 다시 기동한다. 예) 가장 작은 id 만 남기기 (MySQL)
+//      DELETE FROM member WHERE username IS NOT NULL AND id NOT IN (
+//          SELECT keep_id FROM (SELECT MIN(id) AS keep_id FROM member WHERE username IS NOT NULL GROUP BY username) keep);
+// 이미 옮겨진 스키마나 member 테이블이 없는 새 DB 에서는 아무것도 하지 않는다.
+// 샤드 모드에서는 모든 샤드를 차례로 옮긴다.
+
+@Slf4j
+@RequiredArgsConstructor
+public class MemberSchemaMigration implements InitializingBean {
+
+    static final String TABLE = "member";
+    static final String UNIQUE_USERNAME = "uk_member_username";
+    // 기동 실패 메시지에 담는 중복 username 최대 개수
+    static final int MAX_REPORTED_DUPLICATES = 20;
+
+    private final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        for (DataSource target : targets(dataSource)) {
+            migrate(target);
+        }
+    }
+
+    static Collection<DataSource> targets(DataSource dataSource) throws SQLException {
+        if (dataSource.isWrapperFor(ShardRoutingDataSource.class)) {
+            return dataSource.unwrap(ShardRoutingDataSource.class).getResolvedDataSources().values();
+        }
+        return List.of(dataSource);
+    }
+
+    private static void migrate(DataSource dataSource) throws SQLException {
+        boolean hasVersion;
+        boolean hasUniqueUsername;
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String table = identifier(metaData, TABLE);
+            try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, table, null)) {
+                if (!tables.next()) {
+                    return;
+                }
+            }
+            try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, identifier(metaData, "version"))) {
+                hasVersion = columns.next();
+            }
+            hasUniqueUsername = hasIndex(metaData.getIndexInfo(connection.getCatalog(), null, table, true, false));
+        }
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        if (!hasVersion) {
+            jdbcTemplate.execute("ALTER TABLE member ADD COLUMN version BIGINT");
+            int backfilled = jdbcTemplate.update("UPDATE member SET version = 0 WHERE version IS NULL");
+            log.info("member.version 추가, 기존 행 채움: {}건", backfilled);
+        }
+        if (hasUniqueUsername) {
+            return;
+        }
+        List<String> duplicates = jdbcTemplate.queryForList(
+                "SELECT username FROM member WHERE username IS NOT NULL GROUP BY username HAVING COUNT(*) > 1 ORDER BY username",
+                String.class);
+        if (!duplicates.isEmpty()) {
+            throw new IllegalStateException(UNIQUE_USERNAME + " 제약을 추가할 수 없습니다. 중복 username 을 정리한 뒤 다시 기동하세요. (MemberSchemaMigration 참고) "
+                    + "중복 " + duplicates.size() + "개: "
+                    + duplicates.subList(0, Math.min(duplicates.size(), MAX_REPORTED_DUPLICATES)));
+        }
+        jdbcTemplate.execute("ALTER TABLE member ADD CONSTRAINT " + UNIQUE_USERNAME + " UNIQUE (username)");
+        log.info("{} 제약 추가", UNIQUE_USERNAME);
+    }
+
+    private static boolean hasIndex(ResultSet indexes) throws SQLException {
+        try (indexes) {
+            while (indexes.next()) {
+                // H2 는 제약 이름 뒤에 _INDEX_n 을 붙여서 인덱스를 만든다.
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null && name.toLowerCase(Locale.ROOT).startsWith(UNIQUE_USERNAME)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // 메타데이터 조회는 DB 가 저장하는 대소문자로 해야 한다. (H2 는 대문자, MySQL 은 소문자)
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        return metaData.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+    }
+}
@@ -0,0 +1,132 @@
+package hello.springtx.jpa;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.EntityKey;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionSystemException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// 기본 HibernateJpaDialect 는 세이브포인트를 지원하지 않아서 JpaTransactionManager 에서 NESTED 전파를 쓰면
+// NestedTransactionNotSupportedException 이 발생한다.
+// -> 트랜잭션 데이터에 SavepointManager 를 붙여서 같은 커넥션 안에서 JDBC 세이브포인트로 NESTED 를 처리한다.
+//
+// 세이브포인트 생성 전에 flush 해서 그 이전 변경은 DB 에 반영해두고, 그 시점의 영속성 컨텍스트 엔티티 키와 loadedState 를 기억한다.
+// 세이브포인트로 롤백하면
+// - 세이브포인트 이후에 쌓인 insert/update/delete 액션을 버리고
+// - 세이브포인트 이후 영속성 컨텍스트에 들어온 엔티티만 준영속으로 만들고 (외부 트랜잭션 엔티티는 그대로 관리된다)
+// - 세이브포인트 이후 변경(flush 여부와 관계없이)된 외부 엔티티는 DB 에서 다시 읽어 세이브포인트 시점 상태로 되돌린다.
+// 세이브포인트 해제 전에도 flush 해서 NESTED 안의 insert 가 DB 에서 실패하면 외부 커밋이 아니라 NESTED 경계에서 예외가 난다.
+// -> 단, flush 중 DB 예외는 Hibernate 가 JPA 트랜잭션 전체를 rollback-only 로 표시하므로 외부 트랜잭션은 커밋할 수 없다.
+//    (UnexpectedRollbackException) NESTED 로 복구할 수 있는 건 NESTED 안에서 애플리케이션이 던진 예외뿐이다.
+
+public class SavepointHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        // readOnly 트랜잭션이면 super 가 세션을 기본 읽기 전용(스냅샷 없음) + FlushMode.MANUAL 로 바꾸고, cleanupTransaction 에서 되돌린다.
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return new SavepointTransactionData(entityManager.unwrap(SessionImplementor.class), transactionData);
+    }
+
+    @Override
+    public void cleanupTransaction(@Nullable Object transactionData) {
+        super.cleanupTransaction(transactionData instanceof SavepointTransactionData data ? data.delegate : transactionData);
+    }
+
+    private static class SavepointTransactionData implements SavepointManager {
+
+        private final SessionImplementor session;
+        @Nullable
+        private final Object delegate;
+
+        SavepointTransactionData(SessionImplementor session, @Nullable Object delegate) {
+            this.session = session;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object createSavepoint() throws TransactionException {
+            session.flush();
+            Map<EntityKey, Object[]> loadedStates = new HashMap<>();
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                loadedStates.put(entry.getValue().getEntityKey(), entry.getValue().getLoadedState());
+            }
+            try {
+                return new EntitySavepoint(connection().setSavepoint(), loadedStates);
+            } catch (SQLException e) {
+                throw new CannotCreateTransactionException("Could not create JDBC savepoint", e);
+            }
+        }
+
+        @Override
+        public void rollbackToSavepoint(Object savepoint) throws TransactionException {
+            EntitySavepoint entitySavepoint = (EntitySavepoint) savepoint;
+            try {
+                connection().rollback(entitySavepoint.savepoint());
+            } catch (SQLException e) {
+                throw new TransactionSystemException("Could not roll back to JDBC savepoint", e);
+            }
+            // 세이브포인트 생성 때 flush 했으므로 지금 쌓여 있는 액션은 모두 세이브포인트 이후 것이다.
+            session.getActionQueue().clear();
+            for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+                Object entity = entry.getKey();
+                EntityEntry entityEntry = entry.getValue();
+                EntityKey key = entityEntry.getEntityKey();
+                if (!entitySavepoint.loadedStates().containsKey(key) || entityEntry.getStatus() != Status.MANAGED) {
+                    session.evict(entity);
+                } else if (changedSince(entitySavepoint.loadedStates().get(key), entity, entityEntry)) {
+                    session.refresh(entity);
+                }
+            }
+        }
+
+        @Override
+        public void releaseSavepoint(Object savepoint) throws TransactionException {
+            // NESTED 안에서 쌓인 변경을 세이브포인트 안에서 실행한다. (외부 커밋까지 미루면 실패가 NESTED 호출자에게 보이지 않는다)
+            session.flush();
+            try {
+                connection().releaseSavepoint(((EntitySavepoint) savepoint).savepoint());
+            } catch (SQLException e) {
+                // 일부 드라이버는 세이브포인트 해제를 지원하지 않는다. 커밋/롤백 시 함께 정리되므로 무시한다.
+            }
+        }
+
+        // 세이브포인트 이후 flush 된 변경(loadedState 교체) 또는 아직 flush 되지 않은 변경(dirty)이 있는지
+        private boolean changedSince(@Nullable Object[] savepointState, Object entity, EntityEntry entityEntry) {
+            Object[] loadedState = entityEntry.getLoadedState();
+            if (!Arrays.equals(savepointState, loadedState)) {
+                return true;
+            }
+            if (loadedState == null) {
+                // 읽기 전용 엔티티는 스냅샷이 없고 flush 되지도 않는다.
+                return false;
+            }
+            EntityPersister persister = entityEntry.getPersister();
+            return persister.findDirty(persister.getValues(entity), loadedState, entity, session) != null;
+        }
+
+        private Connection connection() {
+            return session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+        }
+    }
+
+    private record EntitySavepoint(Savepoint savepoint, Map<EntityKey, Object[]> loadedStates) {
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springtx.jpa;
+
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+// 스키마 이전은 ddl-auto 가 실행되기 전, 즉 EntityManagerFactory 보다 먼저 끝나야 한다.
+
+@Configuration
+public class SchemaMigrationConfig {
+
+    @Bean
+    public MemberSchemaMigration memberSchemaMigration(DataSource dataSource) {
+        return new MemberSchemaMigration(dataSource);
+    }
+
+    @Bean
+    public IdSequenceMigration idSequenceMigration(DataSource dataSource) {
+        return new IdSequenceMigration(dataSource);
+    }
+
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor memberSchemaMigrationDependency() {
+        return new EntityManagerFactoryDependsOnPostProcessor(MemberSchemaMigration.class, IdSequenceMigration.class);
+    }
+}
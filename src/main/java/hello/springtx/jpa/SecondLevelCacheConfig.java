@@ -0,0 +1,35 @@
+package hello.springtx.jpa;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.List;
+
+// 2차 캐시 리전의 적중/실패 수를 cache.gets{cache=member,result=hit|miss} 로 노출한다.
+// Hibernate(hibernate-jcache)는 hibernate.javax.cache.uri 가 없으면 프로바이더의 기본 CacheManager 를 쓰므로 같은 인스턴스를 가져온다.
+// EntityManagerFactory 를 받아서 Hibernate 가 리전을 모두 만든 뒤에 등록되게 한다.
+
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.cache.use_second_level_cache", havingValue = "true")
+public class SecondLevelCacheConfig {
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            CacheManager cacheManager = Caching
+                    .getCachingProvider(CaffeineCachingProvider.class.getName())
+                    .getCacheManager();
+            for (String cacheName : cacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, cacheManager.getCache(cacheName), List.of(Tag.of("layer", "hibernate")));
+            }
+        };
+    }
+}
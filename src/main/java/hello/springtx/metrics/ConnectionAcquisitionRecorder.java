@@ -0,0 +1,31 @@
+package hello.springtx.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// 풀에서 실제로 커넥션을 꺼낸 시점을 TransactionMetricsListener 에 알린다.
+// LazyConnectionDataSourceProxy 의 타깃으로 감싸면 트랜잭션 시작이 아니라 첫 SQL 실행 시점이 기록된다.
+
+public class ConnectionAcquisitionRecorder extends DelegatingDataSource {
+
+    public ConnectionAcquisitionRecorder(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        TransactionMetricsListener.connectionAcquired();
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        TransactionMetricsListener.connectionAcquired();
+        return connection;
+    }
+}
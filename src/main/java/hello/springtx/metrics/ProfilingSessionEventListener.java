@@ -0,0 +1,34 @@
+package hello.springtx.metrics;
+
+import org.hibernate.SessionEventListener;
+
+// hibernate.session.events.auto 로 세션마다 생성된다.
+// JDBC 실행 구간을 현재 스레드에서 프로파일링 중인 트랜잭션에 기록한다. (샘플링되지 않았으면 아무 일도 하지 않는다.)
+// 문장 수는 execute/배치 실행이 끝날 때만 센다. prepare 는 구간의 시작만 앞당겨서 같은 문장의 SQL 시간에 포함한다.
+public class ProfilingSessionEventListener implements SessionEventListener {
+
+    @Override
+    public void jdbcPrepareStatementStart() {
+        TransactionProfiler.statementStart();
+    }
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        TransactionProfiler.statementStart();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        TransactionProfiler.statementEnd();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        TransactionProfiler.statementStart();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        TransactionProfiler.statementEnd();
+    }
+}
@@ -0,0 +1,209 @@
+package hello.springtx.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 트랜잭션 매니저에 등록되는 리스너 (스프링 부트가 TransactionExecutionListener 빈을 자동 등록)
+// 리스너는 신규 물리 트랜잭션과 NESTED(세이브포인트)에서만 호출된다. 기존 트랜잭션에 참여하는 논리 트랜잭션은 호출되지 않는다.
+// -> begin/complete 가 스레드마다 LIFO 로 짝을 이루므로 시작 시각을 스레드 로컬 스택에 보관한다.
+//
+// transaction.duration{name, outcome}   begin ~ commit/rollback
+//   outcome: commit, commit_failure, rollback(예외로 롤백), rollback_only(commit 을 요청했지만 rollback-only 마킹 때문에 롤백)
+// transaction.connection.hold{name}     커넥션 획득 ~ commit/rollback (신규 물리 트랜잭션만)
+//   JPA 는 begin 시점에 커넥션을 획득한다. LazyConnectionDataSourceProxy 를 쓰면 첫 SQL 실행 시점에 획득하고(ConnectionAcquisitionRecorder),
+//   SQL 을 실행하지 않은 트랜잭션은 커넥션을 점유하지 않았으므로 기록하지 않는다.
+// transaction.suspensions{name}         REQUIRES_NEW 등으로 기존 트랜잭션을 보류하고 시작한 횟수
+//
+// rollback-only 마킹 때문에 commit 이 롤백으로 끝나는 경우와 예외로 롤백하는 경우는 리스너가 받는 콜백(beforeRollback/afterRollback)이 같고,
+// rollback-only 커밋은 beforeCommit 도 호출되지 않는다. (commit 은 final 이라 트랜잭션 매니저를 감싸지 않고는 가로챌 수 없다.)
+// -> beforeRollback 에서 롤백을 시작한 트랜잭션 매니저 메서드(processRollback 을 호출한 commit/rollback)를 스택에서 확인한다.
+//    롤백할 때만 스택을 보고, 가장 가까운 processRollback 만 보므로 afterCommit 동기화 안에서 시작한 트랜잭션의 롤백과 섞이지 않는다.
+// 풀 전체의 커넥션 획득/사용 시간은 HikariCP 가 hikaricp.connections.acquire / hikaricp.connections.usage 로 기록한다.
+
+@Component
+public class TransactionMetricsListener implements TransactionExecutionListener {
+
+    static final String UNNAMED = "unnamed";
+
+    private static final String TRANSACTION_MANAGER = AbstractPlatformTransactionManager.class.getName();
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    // ConnectionAcquisitionRecorder 가 실제 커넥션 획득 시각을 현재 트랜잭션에 기록하므로 리스너 인스턴스와 무관하게 스레드마다 하나
+    private static final ThreadLocal<Frames> FRAMES = ThreadLocal.withInitial(Frames::new);
+
+    private final MeterRegistry meterRegistry;
+    private final boolean lazyConnections;
+
+    private final Map<String, TransactionMeters> meters = new ConcurrentHashMap<>();
+
+    public TransactionMetricsListener(MeterRegistry meterRegistry, DataSource dataSource) throws SQLException {
+        this.meterRegistry = meterRegistry;
+        this.lazyConnections = dataSource.isWrapperFor(LazyConnectionDataSourceProxy.class);
+    }
+
+    static void connectionAcquired() {
+        FRAMES.get().acquired(System.nanoTime());
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        if (beginFailure != null) {
+            return;
+        }
+        FRAMES.get().push(System.nanoTime());
+
+        if (transaction instanceof DefaultTransactionStatus status && status.getSuspendedResources() != null) {
+            metersFor(transaction).suspensions.increment();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        TransactionMeters txMeters = metersFor(transaction);
+        complete(transaction, txMeters, commitFailure == null ? txMeters.commit : txMeters.commitFailure);
+    }
+
+    @Override
+    public void beforeRollback(TransactionExecution transaction) {
+        FRAMES.get().rollbackOnly = isCommitAttempt();
+    }
+
+    // 이 롤백을 시작한 호출이 commit 이면 true, rollback(예외, 직접 롤백)이면 false
+    static boolean isCommitAttempt() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().equals(TRANSACTION_MANAGER))
+                .map(StackWalker.StackFrame::getMethodName)
+                .dropWhile(method -> !method.equals("processRollback"))
+                .skip(1)
+                .findFirst()
+                .map("commit"::equals)
+                .orElse(false));
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        TransactionMeters txMeters = metersFor(transaction);
+        complete(transaction, txMeters, FRAMES.get().rollbackOnly ? txMeters.rollbackOnly : txMeters.rollback);
+    }
+
+    private void complete(TransactionExecution transaction, TransactionMeters txMeters, Timer outcome) {
+        Frames frames = FRAMES.get();
+        if (frames.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = frames.start();
+        long acquired = frames.acquired();
+        frames.pop();
+
+        outcome.record(now - start, TimeUnit.NANOSECONDS);
+        // NESTED(세이브포인트)는 외부 트랜잭션의 커넥션을 그대로 쓴다.
+        if (!transaction.isNewTransaction()) {
+            return;
+        }
+        long holdStart = lazyConnections ? acquired : start;
+        if (holdStart != 0) {
+            txMeters.connectionHold.record(now - holdStart, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private TransactionMeters metersFor(TransactionExecution transaction) {
+        String name = transaction.getTransactionName();
+        if (!StringUtils.hasLength(name)) {
+            name = UNNAMED;
+        }
+        TransactionMeters txMeters = meters.get(name);
+        if (txMeters == null) {
+            txMeters = meters.computeIfAbsent(name, key -> new TransactionMeters(meterRegistry, key));
+        }
+        return txMeters;
+    }
+
+    private static class TransactionMeters {
+        final Timer commit;
+        final Timer commitFailure;
+        final Timer rollback;
+        final Timer rollbackOnly;
+        final Timer connectionHold;
+        final Counter suspensions;
+
+        TransactionMeters(MeterRegistry registry, String name) {
+            commit = timer(registry, name, "commit");
+            commitFailure = timer(registry, name, "commit_failure");
+            rollback = timer(registry, name, "rollback");
+            rollbackOnly = timer(registry, name, "rollback_only");
+            connectionHold = Timer.builder("transaction.connection.hold")
+                    .tag("name", name)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            suspensions = Counter.builder("transaction.suspensions")
+                    .tag("name", name)
+                    .register(registry);
+        }
+
+        private static Timer timer(MeterRegistry registry, String name, String outcome) {
+            return Timer.builder("transaction.duration")
+                    .tag("name", name)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+
+    // 박싱 없이 트랜잭션마다 시작 시각과 커넥션 획득 시각(0 이면 아직 획득 전)을 쌓아두는 스택
+    private static class Frames {
+        private long[] starts = new long[8];
+        private long[] acquiredAt = new long[8];
+        private int size;
+        // beforeRollback ~ afterRollback 사이에는 다른 트랜잭션이 끼어들지 않는다.
+        private boolean rollbackOnly;
+
+        void push(long start) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                acquiredAt = Arrays.copyOf(acquiredAt, size * 2);
+            }
+            starts[size] = start;
+            acquiredAt[size] = 0;
+            size++;
+        }
+
+        // 트랜잭션 안에서 처음 꺼낸 커넥션만 기록한다. (트랜잭션 밖의 획득은 무시)
+        void acquired(long now) {
+            if (size > 0 && acquiredAt[size - 1] == 0) {
+                acquiredAt[size - 1] = now;
+            }
+        }
+
+        long start() {
+            return starts[size - 1];
+        }
+
+        long acquired() {
+            return acquiredAt[size - 1];
+        }
+
+        void pop() {
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package hello.springtx.metrics;
+
+import java.time.Instant;
+import java.util.List;
+
+// 기준을 넘은 트랜잭션 하나의 기록 (/actuator/transactions)
+// timeline: 트랜잭션 시작 기준 SQL 실행 구간과 그 사이 유휴 구간 (마이크로초)
+public record TransactionProfile(
+        String name,
+        String outcome,
+        Instant startedAt,
+        double holdMillis,
+        double sqlMillis,
+        double idleRatio,
+        int statements,
+        List<Segment> timeline,
+        List<String> stack) {
+
+    public record Segment(String type, long offsetMicros, long durationMicros) {
+    }
+}
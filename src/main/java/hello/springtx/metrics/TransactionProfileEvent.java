@@ -0,0 +1,42 @@
+package hello.springtx.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.Timespan;
+
+// 샘플링된 물리 트랜잭션 하나 (이벤트 duration = 커넥션 점유 시간, 스택은 커밋/롤백 시점)
+// jcmd <pid> JFR.start settings=profile 등으로 녹화 중일 때만 기록된다.
+@Name("hello.springtx.Transaction")
+@Label("Transaction")
+@Category({"Spring TX"})
+@Description("샘플링된 트랜잭션의 SQL 실행 시간과 유휴 시간")
+class TransactionProfileEvent extends Event {
+
+    @Label("Name")
+    String name;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Statements")
+    int statements;
+
+    @Label("SQL Time")
+    @Timespan
+    long sqlTime;
+
+    @Label("Idle Time")
+    @Timespan
+    long idleTime;
+
+    @Label("Idle Ratio")
+    @Percentage
+    double idleRatio;
+
+    @Label("Flagged")
+    boolean flagged;
+}
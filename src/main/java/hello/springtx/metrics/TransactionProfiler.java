@@ -0,0 +1,239 @@
+package hello.springtx.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 물리 트랜잭션의 일부를 샘플링해서 커넥션 점유 시간 중 SQL 실행 시간과 유휴 시간(SQL 사이에 다른 일을 한 시간)을 잰다.
+// SQL 구간은 하이버네이트 SessionEventListener(ProfilingSessionEventListener)가 기록한다.
+// -> 점유 시간 또는 유휴 비율이 기준을 넘으면 트랜잭션 이름(@Transactional 메서드)과 스택을 남긴다.
+//
+// 샘플링되지 않은 트랜잭션은 난수 하나와 스레드 로컬 스택 push/pop 만 한다. 스택은 기준을 넘은 경우에만 수집한다.
+// REQUIRES_NEW 로 보류된 외부 트랜잭션은 내부 트랜잭션이 실행되는 동안 커넥션을 쥔 채로 유휴 상태다.
+
+@Slf4j
+public class TransactionProfiler implements TransactionExecutionListener {
+
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MAX_STACK_FRAMES = 20;
+
+    // 샘플링되지 않은 트랜잭션의 자리
+    private static final Profile NOT_SAMPLED = new Profile(null, 0);
+
+    private static final ThreadLocal<Deque<Profile>> profiles = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final TransactionProfilerProperties properties;
+    private final long holdThresholdNanos;
+    private final long minHoldNanos;
+
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong flagged = new AtomicLong();
+    private final ConcurrentLinkedDeque<TransactionProfile> reports = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger reportCount = new AtomicInteger();
+
+    public TransactionProfiler(TransactionProfilerProperties properties) {
+        this.properties = properties;
+        this.holdThresholdNanos = properties.getHoldTimeThreshold().toNanos();
+        this.minHoldNanos = properties.getMinHoldTime().toNanos();
+    }
+
+    static void statementStart() {
+        Profile profile = profiles.get().peek();
+        if (profile != null && profile != NOT_SAMPLED) {
+            profile.statementStart(System.nanoTime());
+        }
+    }
+
+    static void statementEnd() {
+        Profile profile = profiles.get().peek();
+        if (profile != null && profile != NOT_SAMPLED) {
+            profile.statementEnd(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+        // NESTED 는 같은 커넥션의 세이브포인트 -> 외부 트랜잭션의 기록에 포함된다.
+        if (beginFailure != null || transaction.isNested()) {
+            return;
+        }
+        if (ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            profiles.get().push(NOT_SAMPLED);
+            return;
+        }
+        sampled.incrementAndGet();
+        profiles.get().push(new Profile(transaction.getTransactionName(), System.nanoTime()));
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        complete(transaction, commitFailure == null ? "commit" : "commit_failure");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, @Nullable Throwable rollbackFailure) {
+        complete(transaction, "rollback");
+    }
+
+    private void complete(TransactionExecution transaction, String outcome) {
+        Deque<Profile> stack = profiles.get();
+        if (transaction.isNested() || stack.isEmpty()) {
+            return;
+        }
+        Profile profile = stack.pop();
+        if (profile == NOT_SAMPLED) {
+            return;
+        }
+
+        long holdNanos = System.nanoTime() - profile.startNanos;
+        long idleNanos = Math.max(0, holdNanos - profile.sqlNanos);
+        double idleRatio = holdNanos == 0 ? 0 : (double) idleNanos / holdNanos;
+        boolean exceeded = holdNanos >= holdThresholdNanos
+                || (holdNanos >= minHoldNanos && idleRatio >= properties.getIdleRatioThreshold());
+
+        profile.event.end();
+        if (profile.event.shouldCommit()) {
+            profile.event.name = profile.name;
+            profile.event.outcome = outcome;
+            profile.event.statements = profile.statements;
+            profile.event.sqlTime = profile.sqlNanos;
+            profile.event.idleTime = idleNanos;
+            profile.event.idleRatio = idleRatio;
+            profile.event.flagged = exceeded;
+            profile.event.commit();
+        }
+
+        if (exceeded) {
+            flagged.incrementAndGet();
+            TransactionProfile report = profile.toReport(outcome, holdNanos, idleRatio, captureStack());
+            log.warn("트랜잭션 커넥션 점유 기준 초과: {} hold={}ms, sql={}ms, idleRatio={}, statements={}",
+                    report.name(), String.format("%.1f", report.holdMillis()), String.format("%.1f", report.sqlMillis()),
+                    String.format("%.2f", idleRatio), report.statements());
+            addReport(report);
+        }
+    }
+
+    private void addReport(TransactionProfile report) {
+        reports.addFirst(report);
+        if (reportCount.incrementAndGet() > properties.getMaxReports()) {
+            if (reports.pollLast() != null) {
+                reportCount.decrementAndGet();
+            }
+        }
+    }
+
+    public long getSampledCount() {
+        return sampled.get();
+    }
+
+    public long getFlaggedCount() {
+        return flagged.get();
+    }
+
+    // 최근 기록부터
+    public List<TransactionProfile> getReports() {
+        return List.copyOf(reports);
+    }
+
+    // 트랜잭션 인프라(스프링/하이버네이트/프록시) 프레임을 뺀 호출 스택
+    private static List<String> captureStack() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> {
+                    String className = frame.getClassName();
+                    return !className.equals(TransactionProfiler.class.getName())
+                            && !className.startsWith("org.springframework.")
+                            && !className.startsWith("org.hibernate.")
+                            && !className.startsWith("jdk.internal.")
+                            && !className.startsWith("java.lang.reflect.")
+                            && !className.contains("$$");
+                })
+                .limit(MAX_STACK_FRAMES)
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .toList());
+    }
+
+    private static class Profile {
+        final String name;
+        final long startNanos;
+        final Instant startedAt;
+        final TransactionProfileEvent event;
+
+        long sqlNanos;
+        int statements;
+        long openStart = -1;
+        long[] segments = new long[8];
+        int segmentLength;
+
+        Profile(String name, long startNanos) {
+            this.name = name;
+            this.startNanos = startNanos;
+            this.startedAt = name == null ? null : Instant.now();
+            this.event = name == null ? null : new TransactionProfileEvent();
+            if (event != null) {
+                event.begin();
+            }
+        }
+
+        // prepare 로 이미 시작한 구간이면 execute 시작은 무시한다. -> prepare ~ execute 끝이 문장 하나
+        void statementStart(long now) {
+            if (openStart < 0) {
+                openStart = now;
+            }
+        }
+
+        void statementEnd(long now) {
+            if (openStart < 0) {
+                return;
+            }
+            sqlNanos += now - openStart;
+            statements++;
+            // 구간 기록은 MAX_SEGMENTS 개까지, 이후는 합계만 센다.
+            if (segmentLength < MAX_SEGMENTS * 2) {
+                if (segmentLength == segments.length) {
+                    segments = Arrays.copyOf(segments, segmentLength * 2);
+                }
+                segments[segmentLength++] = openStart - startNanos;
+                segments[segmentLength++] = now - openStart;
+            }
+            openStart = -1;
+        }
+
+        TransactionProfile toReport(String outcome, long holdNanos, double idleRatio, List<String> stack) {
+            List<TransactionProfile.Segment> timeline = new ArrayList<>(segmentLength + 1);
+            long cursor = 0;
+            for (int i = 0; i < segmentLength; i += 2) {
+                long offset = segments[i];
+                long duration = segments[i + 1];
+                if (offset > cursor) {
+                    timeline.add(segment("idle", cursor, offset - cursor));
+                }
+                timeline.add(segment("sql", offset, duration));
+                cursor = offset + duration;
+            }
+            if (holdNanos > cursor) {
+                timeline.add(segment("idle", cursor, holdNanos - cursor));
+            }
+            return new TransactionProfile(name, outcome, startedAt,
+                    holdNanos / 1_000_000.0, sqlNanos / 1_000_000.0, idleRatio, statements, timeline, stack);
+        }
+
+        private static TransactionProfile.Segment segment(String type, long offsetNanos, long durationNanos) {
+            return new TransactionProfile.Segment(type,
+                    TimeUnit.NANOSECONDS.toMicros(offsetNanos), TimeUnit.NANOSECONDS.toMicros(durationNanos));
+        }
+    }
+}
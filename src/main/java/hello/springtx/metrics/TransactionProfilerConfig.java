@@ -0,0 +1,29 @@
+package hello.springtx.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// 프로파일러는 TransactionExecutionListener 빈이므로 스프링 부트가 트랜잭션 매니저에 자동 등록한다.
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.profiler", name = "enabled", havingValue = "true")
+public class TransactionProfilerConfig {
+
+    @Bean
+    public TransactionProfiler transactionProfiler(TransactionProfilerProperties properties) {
+        return new TransactionProfiler(properties);
+    }
+
+    @Bean
+    public TransactionProfilerEndpoint transactionProfilerEndpoint(TransactionProfiler transactionProfiler) {
+        return new TransactionProfilerEndpoint(transactionProfiler);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer profilingSessionEventListener() {
+        return properties -> properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER,
+                ProfilingSessionEventListener.class.getName());
+    }
+}
@@ -0,0 +1,23 @@
+package hello.springtx.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+// GET /actuator/transactions
+@Endpoint(id = "transactions")
+@RequiredArgsConstructor
+public class TransactionProfilerEndpoint {
+
+    private final TransactionProfiler profiler;
+
+    @ReadOperation
+    public Report report() {
+        return new Report(profiler.getSampledCount(), profiler.getFlaggedCount(), profiler.getReports());
+    }
+
+    public record Report(long sampled, long flagged, List<TransactionProfile> transactions) {
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springtx.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.profiler")
+public class TransactionProfilerProperties {
+
+    private boolean enabled = false;
+
+    // 프로파일링할 물리 트랜잭션 비율 (0.0 ~ 1.0)
+    private double sampleRate = 0.01;
+
+    // 커넥션 점유 시간이 이 값 이상이면 기록
+    private Duration holdTimeThreshold = Duration.ofMillis(200);
+
+    // 점유 시간 중 SQL 을 실행하지 않은 시간의 비율이 이 값 이상이면 기록 (minHoldTime 보다 짧은 트랜잭션은 제외)
+    private double idleRatioThreshold = 0.5;
+    private Duration minHoldTime = Duration.ofMillis(10);
+
+    // /actuator/transactions 에 보관할 최근 기록 수
+    private int maxReports = 100;
+}
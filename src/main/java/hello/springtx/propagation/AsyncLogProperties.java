@@ -0,0 +1,35 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.log.async")
+public class AsyncLogProperties {
+
+    // false 면 AsyncLogWriter 는 LogRepository.save(REQUIRES_NEW) 를 그대로 호출한다.
+    private boolean enabled = false;
+
+    private int queueCapacity = 10_000;
+
+    // 배치 하나에 담을 최대 로그 수 -> 한 트랜잭션으로 커밋된다.
+    private int batchSize = 100;
+
+    // 첫 로그가 들어온 뒤 배치를 채우기 위해 기다리는 최대 시간
+    private Duration flushInterval = Duration.ofMillis(50);
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SYNC;
+
+    public enum OverflowPolicy {
+        // 큐에 자리가 날 때까지 호출 스레드를 블로킹
+        BLOCK,
+        // 로그를 버리고 카운트만 남긴다
+        DROP,
+        // 호출 스레드에서 LogRepository.save(REQUIRES_NEW) 로 바로 저장
+        SYNC
+    }
+}
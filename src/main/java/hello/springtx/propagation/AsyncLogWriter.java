@@ -0,0 +1,189 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LogRepository.save 는 로그 한 건마다 REQUIRES_NEW 로 새 물리 트랜잭션(= 커넥션 하나 더)을 연다.
+// AsyncLogWriter 는 로그를 메모리 큐에 넣고, 백그라운드 스레드가 모아서 배치 단위로 한 트랜잭션에 저장한다.
+// -> 호출 스레드는 외부 트랜잭션의 커넥션 하나만 사용한다.
+// 로그는 호출 트랜잭션이 커밋된 뒤(afterCommit)에 큐에 넣는다. -> 롤백된 회원 가입의 로그는 저장하지 않는다.
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AsyncLogWriter implements SmartLifecycle {
+
+    private final LogRepository logRepository;
+    private final AsyncLogProperties properties;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private BlockingQueue<Log> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+    // stop() 이 남은 로그 저장을 넘겨받았다. -> 쓰기 스레드는 새 배치를 가져가지 않는다.
+    private volatile boolean handoff;
+
+    public void write(Log logMessage) {
+        // 비활성화되어 있으면 joinV1 과 같이 호출 트랜잭션 안에서 REQUIRES_NEW 로 저장한다.
+        if (!running) {
+            logRepository.save(logMessage);
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(logMessage);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(logMessage);
+            }
+        });
+    }
+
+    private void enqueue(Log logMessage) {
+        if (!running) {
+            logRepository.save(logMessage);
+            return;
+        }
+
+        switch (properties.getOverflowPolicy()) {
+            case BLOCK -> {
+                try {
+                    queue.put(logMessage);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    logRepository.save(logMessage);
+                    return;
+                }
+            }
+            case DROP -> {
+                if (!queue.offer(logMessage)) {
+                    long dropped = droppedCount.incrementAndGet();
+                    log.warn("로그 큐가 가득 차 로그를 버립니다. message: {}, 누적: {}", logMessage.getMessage(), dropped);
+                    return;
+                }
+            }
+            case SYNC -> {
+                if (!queue.offer(logMessage)) {
+                    logRepository.save(logMessage);
+                    return;
+                }
+            }
+        }
+        // stop() 이 큐를 비운 뒤에 넣었으면 아무도 가져가지 않는다. -> 직접 저장
+        if (!running && queue.remove(logMessage)) {
+            logRepository.save(logMessage);
+        }
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getPendingCount() {
+        return queue == null ? 0 : queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        handoff = false;
+        running = true;
+        writerThread = new Thread(this::drainLoop, "async-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // 쓰기 스레드가 남은 큐를 비우고 끝나기를 기다린다.
+        // 제한 시간 안에 끝나지 않으면 새 배치를 가져가지 않게 하고(handoff), 저장 중인 배치가 끝날 때까지 기다린 뒤에 나머지를 여기서 저장한다.
+        // -> 쓰기 스레드와 호출 스레드가 동시에 로그를 저장하지 않는다.
+        boolean interrupted = false;
+        try {
+            writerThread.join(properties.getFlushInterval().toMillis() * 10 + 1000);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (writerThread.isAlive()) {
+            log.warn("로그 쓰기 스레드가 제한 시간 안에 끝나지 않았습니다. 저장 중인 배치가 끝나면 남은 로그를 종료 스레드에서 저장합니다. 남은 건수: {}",
+                    queue.size());
+            handoff = true;
+            // 인터럽트되어도 쓰기 스레드가 끝나기 전에는 큐를 건드리지 않는다.
+            while (writerThread.isAlive()) {
+                try {
+                    writerThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 종료 직전에 write 가 큐에 넣은 로그까지 저장한다.
+        List<Log> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            flush(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        List<Log> batch = new ArrayList<>(properties.getBatchSize());
+        while (!handoff && (running || !queue.isEmpty())) {
+            try {
+                LogBatches.collect(queue, batch, properties.getBatchSize(), properties.getFlushInterval().toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Log> batch) {
+        try {
+            logRepository.saveAll(batch);
+        } catch (RuntimeException e) {
+            // 배치 중 한 건이라도 실패하면 배치 트랜잭션 전체가 롤백된다.
+            // -> 건별 REQUIRES_NEW 로 다시 저장해서 문제 있는 로그만 실패시킨다.
+            log.info("로그 일괄 저장 실패, 건별 저장으로 재시도합니다. 건수: {}", batch.size());
+            for (Log logMessage : batch) {
+                try {
+                    // persist 시점에 id 가 채워졌으므로 새 엔티티로 다시 저장
+                    logRepository.save(new Log(logMessage.getMessage()));
+                } catch (RuntimeException ex) {
+                    log.info("log 저장에 실패했습니다. log message: {}", logMessage.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package hello.springtx.propagation;
+
+import java.util.List;
+
+// MemberService.joinAll 결과 -> joined: 커밋된 Member 수, failedUsernames: 건별 재시도에서도 저장하지 못한 username
+public record BulkJoinResult(long joined, List<String> failedUsernames) {
+
+    public BulkJoinResult {
+        failedUsernames = List.copyOf(failedUsernames);
+    }
+}
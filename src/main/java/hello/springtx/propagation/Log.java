@@ -2,19 +2,53 @@ package hello.springtx.propagation;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
 @Entity
+@Table(indexes = @Index(name = "idx_log_message", columnList = "message"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_log_event_key", columnNames = "event_key"))
+@NamedQuery(name = Log.FIND_BY_MESSAGE, query = "SELECT l FROM Log l WHERE l.message = :message")
 @Data
 @NoArgsConstructor
 public class Log {
-    @Id @GeneratedValue
+    public static final String FIND_BY_MESSAGE = "Log.findByMessage";
+
+    // Member 와 같은 방식으로 log_id_seq 에서 id 블록을 할당받는다. (이전 버전의 log_seq 와 분리, IdSequenceMigration)
+    public static final String ID_SEQUENCE = "log_id_seq";
+    public static final int ID_BLOCK_SIZE = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_id")
+    @SequenceGenerator(name = "log_id", sequenceName = ID_SEQUENCE, allocationSize = ID_BLOCK_SIZE)
     private Long id;
     private String message;
+    // 아웃박스 이벤트 키 -> 릴레이가 같은 이벤트를 다시 전달해도 로그는 한 건만 남는다.
+    // 재시도되는 가입(joinV1, joinV7)은 Log.join 으로 username 기반 키를 쓴다. (그 밖에 직접 저장한 로그는 null)
+    private String eventKey;
+
+    // 회원 가입 로그의 eventKey -> username 은 유니크하므로 가입 한 건에 로그 한 건
+    // (username 길이와 상관없이 event_key 컬럼에 들어가도록 이름 기반 UUID 를 쓴다.)
+    public static Log join(String username) {
+        return new Log(username, UUID.nameUUIDFromBytes(("join:" + username).getBytes(StandardCharsets.UTF_8)).toString());
+    }
 
     public Log(String message) {
         this.message = message;
     }
+
+    public Log(String message, String eventKey) {
+        this.message = message;
+        this.eventKey = eventKey;
+    }
 }
@@ -0,0 +1,36 @@
+package hello.springtx.propagation;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+final class LogBatches {
+
+    private LogBatches() {
+    }
+
+    // 첫 요소를 window 동안 기다리고, 첫 요소 이후 window 가 지나거나 batchSize 만큼 모이면 반환한다.
+    static <T> void collect(BlockingQueue<T> queue, List<T> batch, int batchSize, long windowNanos) throws InterruptedException {
+        T first = queue.poll(windowNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.log.group-commit")
+public class LogGroupCommitProperties {
+
+    // false 면 LogGroupCommitter 는 LogRepository.save(REQUIRES_NEW) 를 그대로 호출한다.
+    private boolean enabled = false;
+
+    // 같은 그룹으로 묶기 위해 기다리는 시간 -> 길수록 처리량은 늘고 호출자 지연은 늘어난다.
+    private Duration window = Duration.ofMillis(5);
+
+    private int maxGroupSize = 100;
+
+    // 호출자가 그룹 커밋 결과를 기다리는 최대 시간
+    private Duration commitTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,151 @@
+package hello.springtx.propagation;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionTimedOutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// 그룹 커밋: 동시에 들어온 로그 저장 요청을 window 동안 모아서 하나의 트랜잭션으로 커밋한다.
+// AsyncLogWriter 와 달리 호출자는 자기 로그의 커밋 결과를 기다리고, 실패하면 예외를 받는다.
+// -> joinV2 처럼 "로그 실패 시 예외를 잡고 정상 흐름 반환" 복구가 그대로 동작한다.
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LogGroupCommitter implements SmartLifecycle {
+
+    private final LogRepository logRepository;
+    private final LogGroupCommitProperties properties;
+
+    private final BlockingQueue<PendingLog> queue = new LinkedBlockingQueue<>();
+    private Thread committerThread;
+    private volatile boolean running;
+
+    // 그룹이 커밋될 때까지 블로킹, 실패하면 LogRepository.save 와 같은 RuntimeException 을 던진다.
+    // 호출자는 외부 트랜잭션의 커넥션을 잡고 기다리므로 commitTimeout 이 지나면 TransactionTimedOutException 으로 끝낸다.
+    // (이미 커미터가 가져간 로그는 시간 초과 후에 저장될 수도 있다.)
+    public void save(Log logMessage) {
+        if (!running) {
+            logRepository.save(logMessage);
+            return;
+        }
+
+        PendingLog pending = new PendingLog(logMessage, new CompletableFuture<>());
+        queue.add(pending);
+        // stop() 이 큐를 비운 뒤에 넣었으면 아무도 가져가지 않는다. -> 직접 저장
+        if (!running && queue.remove(pending)) {
+            logRepository.save(logMessage);
+            return;
+        }
+        Duration timeout = properties.getCommitTimeout();
+        try {
+            pending.result().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("로그 그룹 커밋 실패", e.getCause());
+        } catch (TimeoutException e) {
+            queue.remove(pending);
+            throw new TransactionTimedOutException("로그 그룹 커밋 대기 시간 초과: " + timeout);
+        } catch (InterruptedException e) {
+            queue.remove(pending);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("로그 그룹 커밋 대기 중 인터럽트", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        running = true;
+        committerThread = new Thread(this::commitLoop, "log-group-committer");
+        committerThread.setDaemon(true);
+        committerThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            committerThread.join(properties.getWindow().toMillis() * 10 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 커미터가 끝난 뒤(또는 오류로 죽은 뒤) 남은 요청은 여기서 커밋하거나 실패로 끝낸다.
+        List<PendingLog> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            commitOrFail(remaining);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void commitLoop() {
+        List<PendingLog> group = new ArrayList<>(properties.getMaxGroupSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                LogBatches.collect(queue, group, properties.getMaxGroupSize(), properties.getWindow().toNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!group.isEmpty()) {
+                commitOrFail(group);
+                group.clear();
+            }
+        }
+    }
+
+    // Error 가 나도 커미터 스레드가 죽지 않고, 그룹의 호출자는 모두 결과를 받는다.
+    private void commitOrFail(List<PendingLog> group) {
+        try {
+            commit(group);
+        } catch (Throwable e) {
+            log.error("로그 그룹 커밋 중 오류, 건수: {}", group.size(), e);
+            group.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void commit(List<PendingLog> group) {
+        try {
+            logRepository.saveAll(group.stream().map(PendingLog::logMessage).toList());
+            group.forEach(pending -> pending.result().complete(null));
+        } catch (RuntimeException e) {
+            // 그룹 중 한 건이 실패하면 그룹 트랜잭션이 롤백된다. -> 건별로 다시 저장해서 실패한 호출자에게만 예외를 전달
+            log.info("로그 그룹 커밋 실패, 건별 저장으로 재시도합니다. 건수: {}", group.size());
+            for (PendingLog pending : group) {
+                try {
+                    logRepository.save(new Log(pending.logMessage().getMessage()));
+                    pending.result().complete(null);
+                } catch (RuntimeException ex) {
+                    pending.result().completeExceptionally(ex);
+                }
+            }
+        }
+    }
+
+    private record PendingLog(Log logMessage, CompletableFuture<Void> result) {
+    }
+}
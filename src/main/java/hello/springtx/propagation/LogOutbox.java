@@ -0,0 +1,41 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// 회원 가입 트랜잭션 안에서 Member 와 함께 insert 되는 로그 이벤트 (log_outbox)
+// 릴레이(LogOutboxRelay)가 커밋된 행을 읽어 Log 로 옮기고 삭제한다.
+// 백로그 게이지는 attempts < max-attempts 인 행의 건수와 MIN(created_at) 을 조회한다. -> (attempts, created_at) 인덱스만 읽는다.
+@Entity
+@Table(indexes = @Index(name = "idx_log_outbox_attempts_created_at", columnList = "attempts, created_at"))
+@Data
+@NoArgsConstructor
+public class LogOutbox {
+    public static final int ID_BLOCK_SIZE = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "log_outbox_id")
+    @SequenceGenerator(name = "log_outbox_id", sequenceName = "log_outbox_seq", allocationSize = ID_BLOCK_SIZE)
+    private Long id;
+    private String eventKey;
+    private String message;
+    private Instant createdAt;
+    // 전달 실패 횟수, spring-tx.log.outbox.max-attempts 에 도달하면 더 이상 전달하지 않는다.
+    private int attempts;
+
+    public LogOutbox(String message) {
+        this.eventKey = UUID.randomUUID().toString();
+        this.message = message;
+        this.createdAt = Instant.now();
+    }
+}
@@ -0,0 +1,9 @@
+package hello.springtx.propagation;
+
+import java.time.Instant;
+
+// 전달 대기 중인 아웃박스 이벤트 -> pending: 건수, oldestCreatedAt: 가장 오래된 이벤트의 생성 시각 (없으면 null)
+public record LogOutboxBacklog(long pending, Instant oldestCreatedAt) {
+
+    public static final LogOutboxBacklog EMPTY = new LogOutboxBacklog(0, null);
+}
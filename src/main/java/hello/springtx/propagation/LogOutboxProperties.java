@@ -0,0 +1,24 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.log.outbox")
+public class LogOutboxProperties {
+
+    // false 면 릴레이를 시작하지 않는다. (joinV6 는 아웃박스에 계속 쌓는다.)
+    private boolean enabled = false;
+
+    // 한 트랜잭션에서 옮기는 최대 이벤트 수
+    private int batchSize = 500;
+
+    // 옮길 이벤트가 배치보다 적으면 다음 조회까지 기다리는 시간
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    private int maxAttempts = 10;
+}
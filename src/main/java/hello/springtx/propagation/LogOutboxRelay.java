@@ -0,0 +1,199 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// 커밋된 아웃박스 이벤트를 배치로 읽어 LogOutboxSink 로 전달하고, 같은 트랜잭션에서 아웃박스 행을 삭제한다.
+// 전달 도중 실패하면 배치가 롤백되고 아웃박스 행이 남으므로 다시 전달된다. (at-least-once)
+// 배치가 실패하면 AsyncLogWriter 와 같이 건별로 다시 전달해서 문제 있는 이벤트만 attempts 를 올린다.
+//
+// log.outbox.relayed       전달한 이벤트 수
+// log.outbox.failures      전달에 실패한 이벤트 수
+// log.outbox.lag           이벤트 생성(회원 가입 커밋 직전) ~ 전달 커밋
+// log.outbox.backlog       전달 대기 중인 이벤트 수
+// log.outbox.oldest.age    가장 오래 기다린 이벤트의 대기 시간(초)
+//
+// 백로그 게이지는 메트릭 수집 스레드에서 DB 를 조회하지 않도록 릴레이 스레드가 폴링할 때 구한 값을 보여준다.
+// (밀린 이벤트를 연속으로 옮기는 동안에도 poll-interval 에 한 번만 조회한다.) 릴레이가 꺼져 있으면 등록하지 않는다.
+
+@Slf4j
+@Component
+public class LogOutboxRelay implements SmartLifecycle {
+
+    private final LogOutboxRepository outboxRepository;
+    private final LogOutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final LogOutboxProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter relayed;
+    private final Counter failures;
+    private final Timer lag;
+
+    private volatile LogOutboxBacklog backlog = LogOutboxBacklog.EMPTY;
+
+    private Thread relayThread;
+    private volatile boolean running;
+
+    public LogOutboxRelay(LogOutboxRepository outboxRepository,
+                          LogOutboxSink sink,
+                          TransactionTemplate transactionTemplate,
+                          LogOutboxProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        this.relayed = meterRegistry.counter("log.outbox.relayed");
+        this.failures = meterRegistry.counter("log.outbox.failures");
+        this.lag = Timer.builder("log.outbox.lag")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // 한 배치를 옮기고 전달한 이벤트 수를 반환한다.
+    public int relayBatch() {
+        List<LogOutbox> batch = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                batch.addAll(outboxRepository.lockBatch(properties.getBatchSize(), properties.getMaxAttempts()));
+                if (batch.isEmpty()) {
+                    return;
+                }
+                sink.deliver(batch);
+                outboxRepository.deleteAll(batch.stream().map(LogOutbox::getId).toList());
+            });
+        } catch (RuntimeException e) {
+            log.info("아웃박스 일괄 전달 실패, 건별 전달로 재시도합니다. 건수: {}", batch.size());
+            return relayOneByOne(batch);
+        }
+        delivered(batch);
+        return batch.size();
+    }
+
+    private int relayOneByOne(List<LogOutbox> batch) {
+        int count = 0;
+        for (LogOutbox event : batch) {
+            try {
+                boolean done = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    // 그 사이 다른 릴레이가 옮겼거나 잡고 있으면 건너뛴다.
+                    if (outboxRepository.lock(event.getId()).isEmpty()) {
+                        return false;
+                    }
+                    sink.deliver(List.of(event));
+                    outboxRepository.deleteAll(List.of(event.getId()));
+                    return true;
+                }));
+                if (done) {
+                    delivered(List.of(event));
+                    count++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("아웃박스 이벤트 전달 실패. eventKey: {}, attempts: {}", event.getEventKey(), event.getAttempts() + 1, e);
+                failures.increment();
+                outboxRepository.incrementAttempts(List.of(event.getId()));
+            }
+        }
+        return count;
+    }
+
+    private void delivered(List<LogOutbox> events) {
+        Instant now = Instant.now();
+        for (LogOutbox event : events) {
+            lag.record(Duration.between(event.getCreatedAt(), now));
+        }
+        relayed.increment(events.size());
+    }
+
+    private void refreshBacklog() {
+        backlog = outboxRepository.backlog(properties.getMaxAttempts());
+    }
+
+    private double pending() {
+        return backlog.pending();
+    }
+
+    // 대기 시간은 마지막 폴링 이후에도 계속 늘어나므로 읽는 시점의 시각으로 계산한다.
+    private double oldestAgeSeconds() {
+        Instant oldest = backlog.oldestCreatedAt();
+        return oldest == null ? 0.0 : Duration.between(oldest, Instant.now()).toMillis() / 1000.0;
+    }
+
+    @Override
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Gauge.builder("log.outbox.backlog", this, LogOutboxRelay::pending)
+                .register(meterRegistry);
+        Gauge.builder("log.outbox.oldest.age", this, LogOutboxRelay::oldestAgeSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        running = true;
+        relayThread = new Thread(this::relayLoop, "log-outbox-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            relayThread.join(properties.getPollInterval().toMillis() * 10 + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        long pollIntervalNanos = properties.getPollInterval().toNanos();
+        long backlogRefreshedAt = System.nanoTime() - pollIntervalNanos;
+        while (running) {
+            int count;
+            try {
+                count = relayBatch();
+            } catch (RuntimeException e) {
+                log.warn("아웃박스 릴레이 실패", e);
+                count = 0;
+            }
+            if (System.nanoTime() - backlogRefreshedAt >= pollIntervalNanos) {
+                backlogRefreshedAt = System.nanoTime();
+                try {
+                    refreshBacklog();
+                } catch (RuntimeException e) {
+                    log.warn("아웃박스 백로그 조회 실패", e);
+                }
+            }
+            // 배치를 가득 채웠으면 밀린 이벤트가 더 있다고 보고 바로 다음 배치를 옮긴다.
+            if (count < properties.getBatchSize()) {
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
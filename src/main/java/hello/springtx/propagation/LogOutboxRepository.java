@@ -0,0 +1,72 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.LockOptions;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class LogOutboxRepository {
+
+    // SELECT ... FOR UPDATE SKIP LOCKED -> 다른 릴레이가 잡고 있는 행은 기다리지 않고 건너뛴다.
+    private static final String LOCK_TIMEOUT = "jakarta.persistence.lock.timeout";
+
+    private final EntityManager em;
+
+    // 호출한 트랜잭션(회원 가입)에 참여한다.
+    @Transactional
+    public void append(LogOutbox event) {
+        em.persist(event);
+    }
+
+    @Transactional
+    public List<LogOutbox> lockBatch(int limit, int maxAttempts) {
+        return em.createQuery("SELECT o FROM LogOutbox o WHERE o.attempts < :maxAttempts ORDER BY o.id", LogOutbox.class)
+                .setParameter("maxAttempts", maxAttempts)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .getResultList();
+    }
+
+    @Transactional
+    public Optional<LogOutbox> lock(Long id) {
+        return em.createQuery("SELECT o FROM LogOutbox o WHERE o.id = :id", LogOutbox.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .getResultList().stream().findAny();
+    }
+
+    @Transactional
+    public void deleteAll(List<Long> ids) {
+        em.createQuery("DELETE FROM LogOutbox o WHERE o.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // 전달 트랜잭션이 롤백된 뒤에 호출된다.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void incrementAttempts(List<Long> ids) {
+        em.createQuery("UPDATE LogOutbox o SET o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    // (attempts, created_at) 인덱스만 읽는 한 번의 쿼리로 건수와 가장 오래된 생성 시각을 함께 구한다.
+    @Transactional(readOnly = true)
+    public LogOutboxBacklog backlog(int maxAttempts) {
+        return em.createQuery("SELECT new hello.springtx.propagation.LogOutboxBacklog(COUNT(o), MIN(o.createdAt))"
+                        + " FROM LogOutbox o WHERE o.attempts < :maxAttempts", LogOutboxBacklog.class)
+                .setParameter("maxAttempts", maxAttempts)
+                .getSingleResult();
+    }
+
+}
@@ -0,0 +1,11 @@
+package hello.springtx.propagation;
+
+import java.util.List;
+
+// 릴레이가 아웃박스 이벤트를 전달하는 대상
+// 전달 후 아웃박스 삭제가 커밋되기 전에 실패하면 같은 이벤트가 다시 전달된다. (at-least-once) -> eventKey 로 멱등하게 처리해야 한다.
+public interface LogOutboxSink {
+
+    // 릴레이의 트랜잭션 안에서 호출된다. 예외를 던지면 배치 전체가 롤백되고 다음에 다시 전달된다.
+    void deliver(List<LogOutbox> events);
+}
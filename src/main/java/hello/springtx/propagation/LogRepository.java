@@ -1,13 +1,18 @@
 package hello.springtx.propagation;
 
+import hello.springtx.datasource.ReplicaReader;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
@@ -15,9 +20,16 @@ import java.util.Optional;
 public class LogRepository {
 
     private final EntityManager em;
+    private final ReplicaReader replicaReader;
 
+    // eventKey 가 있으면 이미 커밋된 같은 eventKey 의 로그가 있을 때 저장하지 않는다.
+    // -> 외부 트랜잭션이 재시도(@RetryableTransaction)되어 다시 호출되어도 로그는 한 건만 남는다. (LogTableSink 와 같은 방식)
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void save(Log logMessage) {
+        if (logMessage.getEventKey() != null && exists(logMessage.getEventKey())) {
+            log.info("이미 저장된 로그: {}", logMessage.getEventKey());
+            return;
+        }
         log.info("로그 저장");
         em.persist(logMessage);
 
@@ -27,11 +39,59 @@ public class LogRepository {
         }
     }
 
+    private boolean exists(String eventKey) {
+        return !em.createQuery("SELECT l.id FROM Log l WHERE l.eventKey = :eventKey", Long.class)
+                .setParameter("eventKey", eventKey)
+                .setMaxResults(1)
+                .getResultList().isEmpty();
+    }
+
+    // 외부 트랜잭션과 같은 커넥션에서 세이브포인트로 저장 -> 실패하면 세이브포인트까지만 롤백된다.
+    // REQUIRES_NEW 와 달리 커넥션을 하나 더 쓰지 않고, 외부 트랜잭션이 롤백되면 로그도 함께 롤백된다.
+    @Transactional(propagation = Propagation.NESTED)
+    public void saveNested(Log logMessage) {
+        log.info("로그 저장(NESTED)");
+        em.persist(logMessage);
+
+        if (logMessage.getMessage().contains("로그예외")) {
+            log.info("log 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
+    // 여러 로그를 하나의 물리 트랜잭션으로 저장한다. (hibernate.jdbc.batch_size 단위로 JDBC 배치 insert)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void saveAll(List<Log> logMessages) {
+        log.info("로그 일괄 저장: {}건", logMessages.size());
+        for (Log logMessage : logMessages) {
+            em.persist(logMessage);
+        }
+
+        if (logMessages.stream().anyMatch(logMessage -> logMessage.getMessage().contains("로그예외"))) {
+            log.info("log 일괄 저장시 예외 발생");
+            throw new RuntimeException("예외 발생");
+        }
+    }
+
+    // MemberRepository.find 와 같은 방식 -> 레플리카 라우팅이 켜져 있을 때만 읽기 전용 트랜잭션을 연다.
     public Optional<Log> find(String message) {
-        return em
-                .createQuery("SELECT l FROM Log l WHERE l.message = :message", Log.class)
+        return replicaReader.read(() -> em
+                .createNamedQuery(Log.FIND_BY_MESSAGE, Log.class)
                 .setParameter("message", message)
-                .getResultList().stream().findAny();
+                .setMaxResults(1)
+                .getResultList().stream().findAny());
+    }
+
+    // MemberRepository.streamAll 과 같은 방식 -> 호출자의 트랜잭션 안에서 읽고 스트림을 닫아야 한다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<Log> streamAll(int fetchSize) {
+        return em
+                .createQuery("SELECT l FROM Log l ORDER BY l.id", Log.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()
+                .peek(em::detach);
     }
 
 }
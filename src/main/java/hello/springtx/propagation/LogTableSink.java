@@ -0,0 +1,35 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// 아웃박스 이벤트를 Log 테이블로 옮긴다. 아웃박스 삭제와 같은 트랜잭션이므로 같은 DB 안에서는 정확히 한 번 저장된다.
+// 이미 저장된 eventKey 는 건너뛴다. (uk_log_event_key 는 동시에 두 릴레이가 같은 이벤트를 옮기는 경우의 마지막 방어선)
+@Component
+@RequiredArgsConstructor
+public class LogTableSink implements LogOutboxSink {
+
+    private final EntityManager em;
+
+    @Override
+    @Transactional
+    public void deliver(List<LogOutbox> events) {
+        List<String> keys = events.stream().map(LogOutbox::getEventKey).toList();
+        Set<String> delivered = new HashSet<>(em
+                .createQuery("SELECT l.eventKey FROM Log l WHERE l.eventKey IN :keys", String.class)
+                .setParameter("keys", keys)
+                .getResultList());
+
+        for (LogOutbox event : events) {
+            if (delivered.add(event.getEventKey())) {
+                em.persist(new Log(event.getMessage(), event.getEventKey()));
+            }
+        }
+    }
+}
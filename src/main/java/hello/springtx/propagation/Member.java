@@ -1,19 +1,59 @@
 package hello.springtx.propagation;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.NamedQuery;
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.HibernateHints;
 
 @Entity
+// username 은 유일하다. (유니크 인덱스가 조회용 인덱스를 겸한다.)
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_username", columnNames = "username"))
+@NamedQuery(name = Member.FIND_BY_USERNAME, query = "SELECT m FROM Member m WHERE m.username = :username",
+        hints = {
+                @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Member.USERNAME_QUERY_REGION)
+        })
+// 2차 캐시 (hibernate.cache.use_second_level_cache=true 일 때, 리전 크기/만료는 application.conf)
+// READ_WRITE: 커밋된 뒤에만 캐시에 넣고, 수정 중인 엔티티는 소프트 락을 걸어 다른 트랜잭션이 캐시에서 읽지 못하게 한다.
+// -> 롤백된 트랜잭션에서 저장한 Member 는 캐시에 남지 않는다.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Member.REGION)
 @Data
 @NoArgsConstructor
 public class Member {
-    @Id @GeneratedValue
+    public static final String FIND_BY_USERNAME = "Member.findByUsername";
+    public static final String REGION = "member";
+    public static final String USERNAME_QUERY_REGION = "member-by-username";
+
+    // 시퀀스(MySQL 은 member_id_seq 테이블) 조회 한 번으로 id 블록을 확보하고, 블록 안에서는 메모리에서 id 를 할당한다.
+    // -> persist 시점에 id 조회 round-trip 이 없어서 JDBC insert 배치가 동작한다.
+    // 이전 버전은 member_seq 를 pooled(값 = 블록의 끝) + 50 으로 썼다. pooled-lo(값 = 블록의 시작) + 100 과 섞이면 블록이 겹치므로
+    // 새 시퀀스를 쓴다. 기존 DB 에서는 IdSequenceMigration 이 이전 시퀀스보다 큰 값에서 시작하게 만든다.
+    public static final String ID_SEQUENCE = "member_id_seq";
+    public static final int ID_BLOCK_SIZE = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_id")
+    @SequenceGenerator(name = "member_id", sequenceName = ID_SEQUENCE, allocationSize = ID_BLOCK_SIZE)
     private Long id;
     private String username;
 
+    // 동시에 같은 회원을 수정하면 나중에 커밋하는 쪽이 OptimisticLockException 으로 실패한다.
+    @Version
+    private Long version;
+
     public Member(String username) {
         this.username = username;
     }
@@ -0,0 +1,77 @@
+package hello.springtx.propagation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+// username -> Member 조회 결과 캐시 (없음 결과도 캐시한다 -> 가입 전 중복 체크가 대부분 "없음"이기 때문)
+// 캐시된 Member 는 준영속 상태이다.
+// 있음 결과는 ttl, 없음 결과는 negative-ttl 동안 유지한다.
+// -> 가입 커밋 후 제거한 뒤에 아직 따라오지 못한 레플리카에서 "없음"을 다시 읽어도 negative-ttl 이 지나면 사라진다.
+// 회원을 저장하는 쪽(MemberRepository, ReactiveMemberRepository)은 커밋 후 캐시에서 제거해야 한다.
+
+@Component
+public class MemberCache {
+
+    private final boolean enabled;
+    private final Cache<String, Optional<Member>> cache;
+
+    public MemberCache(MemberCacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(Expiry.<String, Optional<Member>>writing(
+                        (username, member) -> member.isPresent() ? properties.getTtl() : properties.getNegativeTtl()))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Member> get(String username, Function<String, Optional<Member>> loader) {
+        if (!isUsable()) {
+            return loader.apply(username);
+        }
+        return cache.get(username, loader);
+    }
+
+    // 커밋된 뒤에만 캐시에서 제거한다. 롤백되면 아무 일도 하지 않는다.
+    public void evictAfterCommit(String username) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(username);
+            }
+        });
+    }
+
+    // 트랜잭션과 무관하게 바로 제거한다. (리액티브 트랜잭션의 afterCommit 에서 호출)
+    public void evict(String username) {
+        if (enabled) {
+            cache.invalidate(username);
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // 쓰기 트랜잭션 안에서는 캐시를 거치지 않는다.
+    // -> 아직 커밋되지 않은 Member 가 캐시에 올라가거나, 방금 저장한 Member 를 캐시의 "없음" 결과로 가리는 일을 막는다.
+    private boolean isUsable() {
+        return enabled && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+    }
+}
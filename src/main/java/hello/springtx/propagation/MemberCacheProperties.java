@@ -0,0 +1,22 @@
+package hello.springtx.propagation;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.member.cache")
+public class MemberCacheProperties {
+
+    private boolean enabled = false;
+
+    private long maximumSize = 10_000;
+
+    private Duration ttl = Duration.ofMinutes(10);
+
+    // "없음" 결과는 짧게만 캐시한다. 가입 커밋 후 제거(afterCommit)와 레플리카 지연 사이에 다시 읽힌 "없음"이 오래 남지 않게 한다. (0 이면 캐시하지 않음)
+    private Duration negativeTtl = Duration.ofSeconds(5);
+}
@@ -1,12 +1,27 @@
 package hello.springtx.propagation;
 
+import hello.springtx.datasource.ReplicaReader;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.CacheMode;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Slf4j
 @Repository
@@ -14,17 +29,126 @@ import java.util.Optional;
 public class MemberRepository {
 
     private final EntityManager em;
+    private final MemberCache memberCache;
+    private final ReplicaReader replicaReader;
 
     @Transactional
     public void save(Member member) {
         log.info("멤버 저장: {}", member);
         em.persist(member);
+        memberCache.evictAfterCommit(member.getUsername());
     }
 
+    // insert 를 먼저 시도하고, username 유니크 제약(uk_member_username) 위반일 때만 "이미 있음"으로 본다.
+    // -> 조회 후 insert 나 락 없이 한 번의 round-trip 으로 중복을 해결한다.
+    // 다른 트랜잭션이 같은 username 을 insert 하고 아직 커밋하지 않았다면 그 트랜잭션이 끝날 때까지 기다린 뒤 결정된다.
+    // INSERT IGNORE 는 PK 충돌, 문자열 잘림 같은 다른 오류도 경고로 바꾸므로 쓰지 않는다. (그런 오류는 그대로 예외)
+    // 제약 위반은 EntityManager 를 거치지 않고 JDBC 로 처리한다. -> JPA 예외가 트랜잭션을 rollback-only 로 만들지 않는다.
+    // (MySQL/H2 는 실패한 문장만 롤백된다. PostgreSQL 처럼 트랜잭션 전체가 중단되는 DB 에서는 쓸 수 없다.)
+    // 반환값: 새로 저장했으면 true
+    @Transactional
+    public boolean saveIfAbsent(Member member) {
+        // persist 와 같은 id 생성기(pooled-lo 블록)에서 id 를 받는다. 실패한 insert 의 id 는 버려진다.
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getEntityPersister(null, member);
+        IdentifierGenerator generator = (IdentifierGenerator) persister.getGenerator();
+        member.setId((Long) generator.generate(session, member));
+        member.setVersion(0L);
+
+        if (!session.doReturningWork(connection -> insertIfAbsent(connection, member))) {
+            log.info("이미 저장된 멤버: {}", member.getUsername());
+            return false;
+        }
+        // 하이버네이트 밖에서 member 를 바꿨으므로 member 2차 캐시 리전과 쿼리 캐시를 네이티브 쿼리처럼 무효화한다.
+        session.getActionQueue().addAction(new BulkOperationCleanupAction(session, persister));
+        log.info("멤버 저장: {}", member);
+        memberCache.evictAfterCommit(member.getUsername());
+        return true;
+    }
+
+    private static boolean insertIfAbsent(Connection connection, Member member) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO member (id, username, version) VALUES (?, ?, ?)")) {
+            statement.setLong(1, member.getId());
+            statement.setString(2, member.getUsername());
+            statement.setLong(3, member.getVersion());
+            statement.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            if (isUsernameConflict(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    // 무결성 제약 위반(SQLState 23xxx) 중 username 유니크 제약만 (MySQL: 1062 Duplicate entry ... for key 'member.uk_member_username')
+    private static boolean isUsernameConflict(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("23")
+                && e.getMessage() != null && e.getMessage().toLowerCase(Locale.ROOT).contains("uk_member_username");
+    }
+
+    // persist 후 flush/clear -> insert 는 배치로 나가고, 영속성 컨텍스트는 비워서 대량 저장 시 메모리가 늘지 않게 한다.
+    @Transactional
+    public void saveAll(List<Member> members) {
+        log.info("멤버 일괄 저장: {}건", members.size());
+        for (Member member : members) {
+            em.persist(member);
+            memberCache.evictAfterCommit(member.getUsername());
+        }
+        em.flush();
+        em.clear();
+    }
+
+    // 캐시를 먼저 확인하고, 캐시 미스일 때만 DB 로 간다. -> 캐시 히트는 트랜잭션을 시작하지 않는다.
+    // DB 조회는 레플리카 라우팅이 켜져 있으면 읽기 전용 트랜잭션(레플리카), 쓰기 트랜잭션 안에서 호출되면 참여하므로 프라이머리
     public Optional<Member> find(String username) {
+        return memberCache.get(username, name -> replicaReader.read(() -> findFromDb(name)));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Member> findAll(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return List.of();
+        }
+        return em
+                .createQuery("SELECT m FROM Member m WHERE m.username IN :usernames", Member.class)
+                .setParameter("usernames", usernames)
+                .getResultList();
+    }
+
+    // 대량 조회용: 엔티티 대신 프로젝션을 id 순서로 limit 건 읽는다. (다음 페이지는 마지막 id 를 afterId 로 넘긴다.)
+    // 읽기 전용 트랜잭션의 엔티티 조회도 스냅샷은 남기지 않지만, 영속성 컨텍스트에 엔티티와 엔티티 엔트리는 쌓인다.
+    @Transactional(readOnly = true)
+    public List<MemberView> findViews(long afterId, int limit) {
+        return em
+                .createQuery("SELECT new hello.springtx.propagation.MemberView(m.id, m.username) FROM Member m"
+                        + " WHERE m.id > :afterId ORDER BY m.id", MemberView.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    // 전체 회원을 id 순서로 읽는 스트림 (forward-only 커서, fetchSize 건씩 DB 에서 가져온다)
+    // 읽은 엔티티는 바로 준영속으로 만들어서 영속성 컨텍스트가 커지지 않는다. -> 테이블 크기와 무관하게 힙 사용량이 일정하다.
+    // 스트림은 트랜잭션 안에서만 읽을 수 있으므로 호출자가 (읽기 전용) 트랜잭션을 열고, 다 읽은 뒤 스트림을 닫아야 한다.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<Member> streamAll(int fetchSize) {
+        return em
+                .createQuery("SELECT m FROM Member m ORDER BY m.id", Member.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                .getResultStream()
+                .peek(em::detach);
+    }
+
+    // 네임드 쿼리는 애플리케이션 시작 시점에 한 번만 파싱/검증된다. -> 호출마다 JPQL 문자열로 쿼리 플랜 캐시를 조회하지 않는다.
+    private Optional<Member> findFromDb(String username) {
         return em
-                .createQuery("SELECT m FROM Member m WHERE m.username = :username", Member.class)
+                .createNamedQuery(Member.FIND_BY_USERNAME, Member.class)
                 .setParameter("username", username)
+                .setMaxResults(1)
                 .getResultList().stream().findAny();
     }
 
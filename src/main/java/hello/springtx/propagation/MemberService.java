@@ -1,10 +1,17 @@
 package hello.springtx.propagation;
 
+import hello.springtx.retry.RetryableTransaction;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -13,11 +20,20 @@ public class MemberService {
 
     private final MemberRepository memberRepository;
     private final LogRepository logRepository;
+    private final AsyncLogWriter asyncLogWriter;
+    private final LogGroupCommitter logGroupCommitter;
+    private final LogOutboxRepository logOutboxRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
 
+    // 데드락/락 대기 타임아웃이면 joinV1 트랜잭션 전체를 재시도한다.
+    // logRepository.save 는 REQUIRES_NEW 로 먼저 커밋되므로, 로그는 가입마다 같은 eventKey(Log.join)로 저장해서 재시도해도 한 건만 남긴다.
+    @RetryableTransaction
     @Transactional
     public void joinV1(String username) {
         Member member = new Member(username);
-        Log logMessage = new Log(username);
+        Log logMessage = Log.join(username);
 
         log.info("======== MemberRepository 호출 시작");
         memberRepository.save(member);
@@ -47,4 +63,187 @@ public class MemberService {
         log.info("======== LogRepository 호출 시작");
     }
 
+    // 로그는 AsyncLogWriter 큐에 넣고 바로 반환 -> 백그라운드 스레드가 배치로 모아서 별도 트랜잭션에 저장
+    // 큐에는 이 트랜잭션이 커밋된 뒤에 들어간다. (회원 가입이 롤백되면 로그도 남지 않는다.)
+    // spring-tx.log.async.enabled=false 면 joinV1 과 동일하게 LogRepository.save(REQUIRES_NEW) 로 저장된다.
+    @Transactional
+    public void joinV3(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("======== MemberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("======== MemberRepository 호출 종료");
+
+        log.info("======== AsyncLogWriter 호출 시작");
+        asyncLogWriter.write(logMessage);
+        log.info("======== AsyncLogWriter 호출 종료");
+    }
+
+    // joinV2 와 같은 복구 흐름, 로그는 동시에 들어온 다른 요청의 로그와 묶어서 한 트랜잭션으로 커밋(그룹 커밋)
+    @Transactional
+    public void joinV4(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("======== MemberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("======== MemberRepository 호출 종료");
+
+        log.info("======== LogGroupCommitter 호출 시작");
+        try {
+            logGroupCommitter.save(logMessage);
+        } catch (RuntimeException e) {
+            log.info("log 저장에 실패했습니다. log message: {}", logMessage.getMessage());
+            log.info("정상 흐름 반환");
+        }
+        log.info("======== LogGroupCommitter 호출 종료");
+    }
+
+    // joinV2 와 같은 복구 흐름, 로그는 NESTED(세이브포인트)로 저장 -> 커넥션 하나로 처리
+    @Transactional
+    public void joinV5(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        log.info("======== MemberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("======== MemberRepository 호출 종료");
+
+        log.info("======== LogRepository 호출 시작");
+        try {
+            logRepository.saveNested(logMessage);
+        } catch (RuntimeException e) {
+            log.info("log 저장에 실패했습니다. log message: {}", logMessage.getMessage());
+            log.info("정상 흐름 반환");
+        }
+        log.info("======== LogRepository 호출 종료");
+    }
+
+    // 로그 이벤트를 Member 와 같은 트랜잭션으로 아웃박스에 저장 -> 두 번째 트랜잭션(커넥션) 없이 둘 다 커밋되거나 둘 다 롤백된다.
+    // Log 테이블에는 LogOutboxRelay 가 커밋된 이벤트를 옮긴다.
+    @Transactional
+    public void joinV6(String username) {
+        Member member = new Member(username);
+        LogOutbox logEvent = new LogOutbox(username);
+
+        log.info("======== MemberRepository 호출 시작");
+        memberRepository.save(member);
+        log.info("======== MemberRepository 호출 종료");
+
+        log.info("======== LogOutboxRepository 호출 시작");
+        logOutboxRepository.append(logEvent);
+        log.info("======== LogOutboxRepository 호출 종료");
+    }
+
+    // joinV1 과 같은 흐름, 같은 username 이 동시에 가입해도 member 는 하나만 저장된다. (username 유니크 제약 위반만 "이미 가입"으로 처리)
+    // 이미 가입된 username 이면 로그를 남기지 않고 false 를 반환한다.
+    // 먼저 insert 한 트랜잭션이 롤백되면 대기하던 insert 끼리 데드락이 날 수 있다. -> joinV1 과 같이 재시도
+    @RetryableTransaction
+    @Transactional
+    public boolean joinV7(String username) {
+        Member member = new Member(username);
+        Log logMessage = Log.join(username);
+
+        log.info("======== MemberRepository 호출 시작");
+        boolean joined = memberRepository.saveIfAbsent(member);
+        log.info("======== MemberRepository 호출 종료");
+        if (!joined) {
+            return false;
+        }
+
+        log.info("======== LogRepository 호출 시작");
+        logRepository.save(logMessage);
+        log.info("======== LogRepository 호출 종료");
+        return true;
+    }
+
+    public BulkJoinResult joinAll(Iterable<String> usernames) {
+        return joinAll(usernames, DEFAULT_CHUNK_SIZE);
+    }
+
+    public BulkJoinResult joinAll(Iterable<String> usernames, int chunkSize) {
+        return joinAll(usernames.iterator(), chunkSize);
+    }
+
+    // 다 읽으면 스트림을 닫는다. (파일/DB 커서 기반 스트림의 자원 반환)
+    public BulkJoinResult joinAll(Stream<String> usernames, int chunkSize) {
+        try (usernames) {
+            return joinAll(usernames.iterator(), chunkSize);
+        }
+    }
+
+    // chunkSize 건씩 끊어서 청크 하나를 하나의 트랜잭션으로 처리한다.
+    // -> 같은 클래스의 @Transactional 메서드를 내부 호출하면 프록시를 거치지 않으므로 TransactionTemplate 으로 청크 트랜잭션을 연다.
+    private BulkJoinResult joinAll(Iterator<String> usernames, int chunkSize) {
+        long joined = 0;
+        List<String> failed = new ArrayList<>();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while (usernames.hasNext()) {
+            chunk.add(usernames.next());
+            if (chunk.size() == chunkSize) {
+                joined += joinChunk(chunk, failed);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            joined += joinChunk(chunk, failed);
+        }
+        return new BulkJoinResult(joined, failed);
+    }
+
+    // 청크가 실패하면 청크 전체가 롤백되므로, 건별 트랜잭션으로 다시 저장해서 실패한 username 만 골라낸다.
+    // 반환값은 커밋된 Member 수, 끝내 실패한 username 은 failed 에 담는다.
+    private int joinChunk(List<String> usernames, List<String> failed) {
+        try {
+            saveChunk(usernames);
+            return usernames.size();
+        } catch (RuntimeException e) {
+            log.warn("청크 저장에 실패했습니다. 건별로 재시도합니다. 첫 username: {}, 건수: {}", usernames.get(0), usernames.size(), e);
+        }
+        int joined = 0;
+        for (String username : usernames) {
+            try {
+                saveChunk(List.of(username));
+                joined++;
+            } catch (RuntimeException e) {
+                log.warn("회원 저장에 실패했습니다. username: {}", username, e);
+                failed.add(username);
+            }
+        }
+        return joined;
+    }
+
+    private void saveChunk(List<String> usernames) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>(usernames.size());
+            List<Log> logMessages = new ArrayList<>(usernames.size());
+            for (String username : usernames) {
+                members.add(new Member(username));
+                logMessages.add(new Log(username));
+            }
+
+            // saveAll 이 flush 하므로 Member 저장 실패는 로그(REQUIRES_NEW)를 커밋하기 전에 드러난다.
+            memberRepository.saveAll(members);
+
+            // joinV2 와 같은 복구 흐름: 로그 저장 실패가 청크의 Member 를 롤백시키지 않는다.
+            try {
+                logRepository.saveAll(logMessages);
+            } catch (RuntimeException e) {
+                log.info("로그 일괄 저장에 실패했습니다. 건별 저장으로 재시도합니다. 건수: {}", logMessages.size());
+                saveLogsOneByOne(logMessages);
+            }
+        });
+    }
+
+    private void saveLogsOneByOne(List<Log> logMessages) {
+        for (Log logMessage : logMessages) {
+            try {
+                logRepository.save(new Log(logMessage.getMessage()));
+            } catch (RuntimeException e) {
+                log.info("log 저장에 실패했습니다. log message: {}", logMessage.getMessage());
+            }
+        }
+    }
+
 }
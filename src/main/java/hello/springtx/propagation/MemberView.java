@@ -0,0 +1,5 @@
+package hello.springtx.propagation;
+
+// 조회 전용 프로젝션: 영속성 컨텍스트에 올라가지 않으므로 스냅샷/더티 체킹 대상이 아니다.
+public record MemberView(Long id, String username) {
+}
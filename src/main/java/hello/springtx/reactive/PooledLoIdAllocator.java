@@ -0,0 +1,74 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 하이버네이트 pooled-lo 최적화(Member/Log 의 @SequenceGenerator)와 같은 방식으로 id 블록을 할당한다.
+// -> 시퀀스 값이 블록의 시작값이고, 블록 안의 id 는 메모리에서 할당하므로 JPA 와 같은 테이블을 함께 써도 id 가 겹치지 않는다.
+//
+// 블록 조회는 하이버네이트처럼 현재 트랜잭션과 별개의 커넥션(autocommit)에서 실행한다.
+// -> MySQL 의 시퀀스 테이블 행 락을 회원 가입 트랜잭션이 끝날 때까지 잡고 있지 않는다.
+// 커넥션은 가입 트랜잭션과 다른 풀(reactiveIdConnectionFactory)에서 얻는다. 같은 풀이면 동시 가입이 커넥션을 모두 잡았을 때 블록을 받지 못한다.
+
+public class PooledLoIdAllocator {
+
+    private final ConnectionFactory connectionFactory;
+    private final String sequenceName;
+    private final int blockSize;
+    private final boolean sequenceTable;
+
+    // 다음에 할당할 id, 블록의 끝(미포함)
+    private long next;
+    private long limit;
+
+    public PooledLoIdAllocator(ConnectionFactory connectionFactory, String sequenceName, int blockSize) {
+        this.connectionFactory = connectionFactory;
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+        // MySQL 은 시퀀스가 없어서 하이버네이트가 next_val 컬럼 하나짜리 테이블로 만든다.
+        String database = connectionFactory.getMetadata().getName();
+        this.sequenceTable = database.contains("MySQL") || database.contains("MariaDB");
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            Long id = allocate();
+            return id != null ? Mono.just(id) : nextBlock().map(this::install);
+        });
+    }
+
+    private synchronized Long allocate() {
+        return next < limit ? next++ : null;
+    }
+
+    // 동시에 블록이 소진되면 각자 새 블록을 받는다. (남은 id 는 버려지지만 겹치지는 않는다.)
+    private synchronized long install(long start) {
+        next = start + 1;
+        limit = start + blockSize;
+        return start;
+    }
+
+    private Mono<Long> nextBlock() {
+        return Mono.usingWhen(Mono.<Connection>from(connectionFactory.create()), this::nextBlock, Connection::close);
+    }
+
+    private Mono<Long> nextBlock(Connection connection) {
+        if (!sequenceTable) {
+            return selectLong(connection, "SELECT NEXT VALUE FOR " + sequenceName);
+        }
+        // LAST_INSERT_ID(expr) 는 커넥션별로 값을 기억한다. -> 같은 커넥션에서 증가시킨 값을 읽는다.
+        return Flux.from(connection
+                        .createStatement("UPDATE " + sequenceName + " SET next_val = LAST_INSERT_ID(next_val + " + blockSize + ")")
+                        .execute())
+                .flatMap(result -> result.getRowsUpdated())
+                .then(selectLong(connection, "SELECT CAST(LAST_INSERT_ID() - " + blockSize + " AS SIGNED)"));
+    }
+
+    private static Mono<Long> selectLong(Connection connection, String sql) {
+        return Flux.from(connection.createStatement(sql).execute())
+                .flatMap(result -> result.map((row, metadata) -> row.get(0, Long.class)))
+                .single();
+    }
+}
@@ -0,0 +1,77 @@
+package hello.springtx.reactive;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+// R2DBC 트랜잭션 매니저를 빈으로 등록하면 @Transactional 이 사용할 트랜잭션 매니저가 두 개가 된다.
+// -> JpaTransactionManager 만 빈으로 두고, 리액티브 쪽은 TransactionalOperator 로만 트랜잭션을 연다.
+//    (SpringTxApplication 에서 R2DBC 자동 설정을 제외한 이유)
+//
+// requiredOperator     @Transactional 과 같은 REQUIRED
+// requiresNewOperator  @Transactional(propagation = REQUIRES_NEW)
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.reactive", name = "enabled", havingValue = "true")
+public class ReactiveConfig {
+
+    @Bean
+    @Primary
+    public ConnectionPool reactiveConnectionFactory(ReactiveProperties properties) {
+        return pool(properties, "reactive", properties.getMaxPoolSize());
+    }
+
+    // PooledLoIdAllocator 전용 풀: 가입 트랜잭션(외부 + REQUIRES_NEW)이 커넥션을 모두 잡고 있어도 id 블록을 받을 수 있다.
+    @Bean
+    public ConnectionPool reactiveIdConnectionFactory(ReactiveProperties properties) {
+        return pool(properties, "reactive-id", properties.getIdPoolSize());
+    }
+
+    private static ConnectionPool pool(ReactiveProperties properties, String name, int maxSize) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(properties.getUrl()).mutate();
+        if (properties.getUsername() != null) {
+            options.option(ConnectionFactoryOptions.USER, properties.getUsername());
+        }
+        if (properties.getPassword() != null) {
+            options.option(ConnectionFactoryOptions.PASSWORD, properties.getPassword());
+        }
+        ConnectionFactory connectionFactory = ConnectionFactories.get(options.build());
+        // r2dbc-pool 은 기본값으로 커넥션을 무한정 기다린다. -> 히카리 connectionTimeout 처럼 제한
+        return new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name(name)
+                .maxSize(maxSize)
+                .maxAcquireTime(properties.getAcquireTimeout())
+                .build());
+    }
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(ConnectionFactory reactiveConnectionFactory) {
+        return DatabaseClient.create(reactiveConnectionFactory);
+    }
+
+    @Bean
+    public TransactionalOperator requiredOperator(ConnectionFactory reactiveConnectionFactory) {
+        return operator(reactiveConnectionFactory, TransactionDefinition.PROPAGATION_REQUIRED);
+    }
+
+    @Bean
+    public TransactionalOperator requiresNewOperator(ConnectionFactory reactiveConnectionFactory) {
+        return operator(reactiveConnectionFactory, TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    private static TransactionalOperator operator(ConnectionFactory connectionFactory, int propagation) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory),
+                new DefaultTransactionDefinition(propagation));
+    }
+}
@@ -0,0 +1,62 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Log;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+// LogRepository 의 R2DBC 버전 (@Transactional(REQUIRES_NEW) -> requiresNewOperator)
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "spring-tx.reactive", name = "enabled", havingValue = "true")
+public class ReactiveLogRepository {
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator requiresNew;
+    private final PooledLoIdAllocator idAllocator;
+
+    public ReactiveLogRepository(DatabaseClient databaseClient,
+                                 @Qualifier("reactiveIdConnectionFactory") ConnectionFactory idConnectionFactory,
+                                 @Qualifier("requiresNewOperator") TransactionalOperator requiresNew) {
+        this.databaseClient = databaseClient;
+        this.requiresNew = requiresNew;
+        this.idAllocator = new PooledLoIdAllocator(idConnectionFactory, Log.ID_SEQUENCE, Log.ID_BLOCK_SIZE);
+    }
+
+    public Mono<Void> save(Log logMessage) {
+        return idAllocator.nextId()
+                .flatMap(id -> {
+                    logMessage.setId(id);
+                    log.info("로그 저장");
+                    return databaseClient.sql("INSERT INTO log (id, message) VALUES (:id, :message)")
+                            .bind("id", id)
+                            .bind("message", logMessage.getMessage())
+                            .then();
+                })
+                .then(Mono.defer(() -> {
+                    if (logMessage.getMessage().contains("로그예외")) {
+                        log.info("log 저장시 예외 발생");
+                        return Mono.error(new RuntimeException("예외 발생"));
+                    }
+                    return Mono.<Void>empty();
+                }))
+                .as(requiresNew::transactional);
+    }
+
+    public Mono<Log> find(String message) {
+        return databaseClient.sql("SELECT id, message FROM log WHERE message = :message LIMIT 1")
+                .bind("message", message)
+                .map((row, metadata) -> {
+                    Log logMessage = new Log(row.get("message", String.class));
+                    logMessage.setId(row.get("id", Long.class));
+                    return logMessage;
+                })
+                .one();
+    }
+
+}
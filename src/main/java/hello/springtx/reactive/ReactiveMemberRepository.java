@@ -0,0 +1,83 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberCache;
+import io.r2dbc.spi.ConnectionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionSynchronization;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+// MemberRepository 의 R2DBC 버전 (@Transactional -> requiredOperator)
+// MemberRepository 와 같이 저장한 username 을 커밋 후 MemberCache 에서 제거한다. (리액티브 트랜잭션의 afterCommit)
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "spring-tx.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMemberRepository {
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator required;
+    private final PooledLoIdAllocator idAllocator;
+    private final MemberCache memberCache;
+
+    public ReactiveMemberRepository(DatabaseClient databaseClient,
+                                    @Qualifier("reactiveIdConnectionFactory") ConnectionFactory idConnectionFactory,
+                                    @Qualifier("requiredOperator") TransactionalOperator required,
+                                    MemberCache memberCache) {
+        this.databaseClient = databaseClient;
+        this.required = required;
+        this.memberCache = memberCache;
+        this.idAllocator = new PooledLoIdAllocator(idConnectionFactory, Member.ID_SEQUENCE, Member.ID_BLOCK_SIZE);
+    }
+
+    public Mono<Void> save(Member member) {
+        return idAllocator.nextId()
+                .flatMap(id -> {
+                    member.setId(id);
+                    member.setVersion(0L);
+                    log.info("멤버 저장: {}", member);
+                    return databaseClient.sql("INSERT INTO member (id, username, version) VALUES (:id, :username, :version)")
+                            .bind("id", id)
+                            .bind("username", member.getUsername())
+                            .bind("version", member.getVersion())
+                            .then()
+                            .then(evictAfterCommit(member.getUsername()));
+                })
+                .as(required::transactional);
+    }
+
+    // 외부 트랜잭션(joinV1)에 참여했으면 외부 트랜잭션이 커밋된 뒤에 제거된다.
+    private Mono<Void> evictAfterCommit(String username) {
+        return TransactionSynchronizationManager.forCurrentTransaction()
+                .doOnNext(synchronizationManager -> {
+                    if (!synchronizationManager.isSynchronizationActive()) {
+                        memberCache.evict(username);
+                        return;
+                    }
+                    synchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public Mono<Void> afterCommit() {
+                            return Mono.fromRunnable(() -> memberCache.evict(username));
+                        }
+                    });
+                })
+                .then();
+    }
+
+    public Mono<Member> find(String username) {
+        return databaseClient.sql("SELECT id, username FROM member WHERE username = :username LIMIT 1")
+                .bind("username", username)
+                .map((row, metadata) -> {
+                    Member member = new Member(row.get("username", String.class));
+                    member.setId(row.get("id", Long.class));
+                    return member;
+                })
+                .one();
+    }
+
+}
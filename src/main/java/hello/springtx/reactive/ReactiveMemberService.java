@@ -0,0 +1,68 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+// MemberService.joinV1/joinV2 의 리액티브 버전
+// 트랜잭션 상태는 스레드 로컬이 아니라 Reactor Context 에 담긴다. -> 체인이 여러 스레드를 옮겨 다녀도 같은 트랜잭션에 참여한다.
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "spring-tx.reactive", name = "enabled", havingValue = "true")
+public class ReactiveMemberService {
+
+    private final ReactiveMemberRepository memberRepository;
+    private final ReactiveLogRepository logRepository;
+    private final TransactionalOperator required;
+
+    public ReactiveMemberService(ReactiveMemberRepository memberRepository,
+                                 ReactiveLogRepository logRepository,
+                                 @Qualifier("requiredOperator") TransactionalOperator required) {
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.required = required;
+    }
+
+    // 로그 저장(REQUIRES_NEW)이 실패하면 예외가 그대로 전파되어 member 도 롤백된다.
+    public Mono<Void> joinV1(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        return Mono.defer(() -> {
+                    log.info("======== ReactiveMemberRepository 호출 시작");
+                    return memberRepository.save(member);
+                })
+                .then(Mono.defer(() -> {
+                    log.info("======== ReactiveLogRepository 호출 시작");
+                    return logRepository.save(logMessage);
+                }))
+                .as(required::transactional);
+    }
+
+    // 로그 저장(REQUIRES_NEW) 실패는 로그 트랜잭션만 롤백하고, 예외를 잡아서 정상 흐름으로 member 를 커밋한다.
+    public Mono<Void> joinV2(String username) {
+        Member member = new Member(username);
+        Log logMessage = new Log(username);
+
+        return Mono.defer(() -> {
+                    log.info("======== ReactiveMemberRepository 호출 시작");
+                    return memberRepository.save(member);
+                })
+                .then(Mono.defer(() -> {
+                    log.info("======== ReactiveLogRepository 호출 시작");
+                    return logRepository.save(logMessage)
+                            .onErrorResume(RuntimeException.class, e -> {
+                                log.info("log 저장에 실패했습니다. log message: {}", logMessage.getMessage());
+                                log.info("정상 흐름 반환");
+                                return Mono.empty();
+                            });
+                }))
+                .as(required::transactional);
+    }
+
+}
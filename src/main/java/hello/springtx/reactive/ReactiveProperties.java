@@ -0,0 +1,28 @@
+package hello.springtx.reactive;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.reactive")
+public class ReactiveProperties {
+
+    private boolean enabled = false;
+
+    // JPA 와 같은 member/log 테이블과 member_id_seq/log_id_seq 를 사용한다.
+    private String url;
+    private String username;
+    private String password;
+
+    private int maxPoolSize = 10;
+
+    // id 블록 조회 전용 풀 크기 (PooledLoIdAllocator)
+    private int idPoolSize = 2;
+
+    // 풀에서 커넥션을 기다리는 최대 시간, 넘으면 오류로 끝난다.
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
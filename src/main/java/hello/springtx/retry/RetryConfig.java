@@ -0,0 +1,29 @@
+package hello.springtx.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class RetryConfig {
+
+    // 트랜잭션 어드바이저(기본 order = LOWEST_PRECEDENCE)보다 먼저 실행되어야 재시도마다 트랜잭션을 새로 시작한다.
+    // 어드바이저는 빈 후처리기 단계에서 일찍 생성되므로 MeterRegistry 는 사용 시점에 꺼낸다.
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor retryableTransactionAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        ComposablePointcut pointcut = new ComposablePointcut(AnnotationMatchingPointcut.forMethodAnnotation(RetryableTransaction.class))
+                .union(new AnnotationMatchingPointcut(RetryableTransaction.class, true));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new RetryableTransactionInterceptor(meterRegistry));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
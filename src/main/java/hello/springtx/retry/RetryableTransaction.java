@@ -0,0 +1,24 @@
+package hello.springtx.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// 데드락, 락 대기 타임아웃 같은 일시적인 오류로 트랜잭션이 실패하면 트랜잭션 전체를 다시 실행한다.
+// @Transactional 과 함께 사용한다. 재시도 어드바이스는 트랜잭션 어드바이스 바깥에서 동작하므로 매 시도가 새 물리 트랜잭션이다.
+// 이미 진행 중인 트랜잭션에 참여하는 호출이면 재시도하지 않는다. (롤백은 가장 바깥 트랜잭션이 결정)
+
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryableTransaction {
+
+    // 첫 시도를 포함한 최대 시도 횟수
+    int maxAttempts() default 3;
+
+    long initialBackoffMillis() default 50;
+
+    long maxBackoffMillis() default 1_000;
+}
@@ -0,0 +1,90 @@
+package hello.springtx.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+// transaction.retries{method, outcome}
+// outcome = retry(재시도 1회), recovered(재시도 후 성공), exhausted(최대 시도 후 실패)
+
+@Slf4j
+@RequiredArgsConstructor
+public class RetryableTransactionInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        // 외부 트랜잭션에 참여하는 호출 -> 여기서 재시도해도 같은 물리 트랜잭션(이미 rollback-only)이므로 의미가 없다.
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+
+        RetryableTransaction retryable = findAnnotation(invocation);
+        if (retryable == null || !(invocation instanceof ProxyMethodInvocation proxyInvocation)) {
+            return invocation.proceed();
+        }
+
+        String method = invocation.getMethod().getDeclaringClass().getSimpleName() + "." + invocation.getMethod().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = proxyInvocation.invocableClone().proceed();
+                if (attempt > 1) {
+                    counter(method, "recovered").increment();
+                }
+                return result;
+            } catch (Throwable ex) {
+                if (!TransientTransactionErrors.isTransient(ex)) {
+                    throw ex;
+                }
+                if (attempt >= retryable.maxAttempts()) {
+                    counter(method, "exhausted").increment();
+                    throw ex;
+                }
+                long backoff = backoffMillis(retryable, attempt);
+                log.info("일시적인 트랜잭션 오류로 재시도합니다. method: {}, attempt: {}, backoff: {}ms, cause: {}",
+                        method, attempt, backoff, ex.toString());
+                counter(method, "retry").increment();
+                Thread.sleep(backoff);
+            }
+        }
+    }
+
+    // full jitter: 0 ~ min(max, initial * 2^(attempt-1)) 사이의 임의 시간
+    private static long backoffMillis(RetryableTransaction retryable, int attempt) {
+        long exponential = retryable.initialBackoffMillis() << Math.min(attempt - 1, 30);
+        long cap = Math.min(retryable.maxBackoffMillis(), exponential);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    private static RetryableTransaction findAnnotation(MethodInvocation invocation) {
+        Method method = invocation.getMethod();
+        Object target = invocation.getThis();
+        if (target != null) {
+            method = AopUtils.getMostSpecificMethod(method, target.getClass());
+        }
+        RetryableTransaction retryable = AnnotatedElementUtils.findMergedAnnotation(method, RetryableTransaction.class);
+        if (retryable == null) {
+            retryable = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RetryableTransaction.class);
+        }
+        return retryable;
+    }
+
+    private Counter counter(String method, String outcome) {
+        return Counter.builder("transaction.retries")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(meterRegistry.getObject());
+    }
+}
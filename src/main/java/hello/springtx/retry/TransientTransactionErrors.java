@@ -0,0 +1,45 @@
+package hello.springtx.retry;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.sql.SQLException;
+import java.util.Set;
+
+// 다시 실행하면 성공할 수 있는 오류인지 판단한다. -> 락 경합(데드락, 락 대기 타임아웃)만 재시도한다.
+// TransientDataAccessException / SQLTransientException 전체는 재시도하지 않는다.
+// - 커넥션 풀 타임아웃(SQLTransientConnectionException): 풀이 고갈된 상태에서 재시도하면 시도마다 connectionTimeout 을 다시 기다린다.
+// - 쿼리 타임아웃(QueryTimeoutException), 낙관적 락 실패: 같은 트랜잭션을 다시 실행해도 해결되지 않거나 호출자가 판단해야 한다.
+final class TransientTransactionErrors {
+
+    // MySQL: 1213 데드락, 1205 락 대기 타임아웃
+    private static final Set<Integer> TRANSIENT_ERROR_CODES = Set.of(1213, 1205);
+
+    // 40001 serialization failure(데드락), 40P01 deadlock detected
+    private static final Set<String> TRANSIENT_SQL_STATES = Set.of("40001", "40P01");
+
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private TransientTransactionErrors() {
+    }
+
+    static boolean isTransient(Throwable ex) {
+        Throwable current = ex;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            // CannotAcquireLockException, DeadlockLoserDataAccessException 등
+            if (current instanceof PessimisticLockingFailureException
+                    || current instanceof PessimisticLockException
+                    || current instanceof LockTimeoutException) {
+                return true;
+            }
+            if (current instanceof SQLException sqlException
+                    && (TRANSIENT_ERROR_CODES.contains(sqlException.getErrorCode())
+                    || TRANSIENT_SQL_STATES.contains(sqlException.getSQLState()))) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
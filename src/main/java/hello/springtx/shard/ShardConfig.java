@@ -0,0 +1,69 @@
+package hello.springtx.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// spring-tx.shard.shards[n].* 마다 히카리 풀을 만들고, JPA/트랜잭션 매니저는 ShardRoutingDataSource 를 사용한다.
+// 스키마는 샤드마다 따로 관리한다. 하이버네이트 ddl-auto 는 기본 커넥션(0번 샤드)에만 적용되므로
+// spring.jpa.hibernate.ddl-auto=none 이 아니면 기동을 실패시킨다. -> 각 샤드에 스키마 스크립트(예: shard-schema.sql)를 직접 적용한다.
+// member 스키마 이전(MemberSchemaMigration)은 모든 샤드에 실행된다.
+// spring-tx.datasource.routing(레플리카 라우팅)과 함께 사용할 수 없다.
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring-tx.shard", name = "enabled", havingValue = "true")
+public class ShardConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardProperties properties) {
+        return new ShardRouter(properties.getShards().size());
+    }
+
+    // 샤드마다 시퀀스가 따로 있으므로 id 블록도 샤드별로 받고, id 에 샤드 번호를 붙인다.
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaGuard() {
+        return properties -> {
+            Object ddlAuto = properties.get(AvailableSettings.HBM2DDL_AUTO);
+            if (ddlAuto != null && !"none".equals(ddlAuto.toString())) {
+                throw new IllegalStateException("샤드 모드에서는 spring.jpa.hibernate.ddl-auto=none 이어야 합니다. (현재: " + ddlAuto
+                        + ") ddl-auto 는 0번 샤드에만 적용되므로 스키마는 샤드마다 직접 만든다.");
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardIdOptimizerCustomizer() {
+        return properties -> properties.put(AvailableSettings.PREFERRED_POOLED_OPTIMIZER, ShardPooledLoOptimizer.class.getName());
+    }
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardProperties properties) {
+        Map<Object, Object> shards = new HashMap<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardProperties.Shard shard = properties.getShards().get(i);
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            dataSource.setPoolName("shard-" + i);
+            dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+            shards.put(i, dataSource);
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(shards);
+        routing.setDefaultTargetDataSource(shards.get(0));
+        return routing;
+    }
+}
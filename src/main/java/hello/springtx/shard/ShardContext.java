@@ -0,0 +1,39 @@
+package hello.springtx.shard;
+
+import java.util.function.Supplier;
+
+// 현재 스레드가 사용할 샤드 번호. ShardRoutingDataSource 가 커넥션을 얻을 때 읽는다.
+// 트랜잭션 매니저는 트랜잭션 시작 시점에 커넥션을 얻으므로, 반드시 트랜잭션을 시작하기 전에 설정해야 한다.
+// -> 트랜잭션 안에서 바꿔도 이미 얻은 커넥션(샤드)은 바뀌지 않는다.
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> current = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return current.get();
+    }
+
+    public static <T> T callInShard(int shard, Supplier<T> action) {
+        Integer previous = current.get();
+        current.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+
+    public static void runInShard(int shard, Runnable action) {
+        callInShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package hello.springtx.shard;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AbstractOptimizer;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.PooledLoOptimizer;
+import org.hibernate.sql.ast.tree.expression.Expression;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 샤드 모드의 pooled-lo 최적화기 (hibernate.id.optimizer.pooled.preferred, ShardConfig 에서 설정)
+// 하이버네이트는 엔티티마다 최적화기를 하나만 두므로, 그대로 쓰면 한 샤드의 시퀀스에서 받은 id 블록이 모든 샤드에 흩어지고
+// 다음 블록은 그때 라우팅된 샤드의 시퀀스에서 받는다. -> 샤드마다 시퀀스가 따로 있으니 같은 블록을 다시 받아 PK 가 중복된다.
+// - 블록은 샤드별로 따로 관리한다. -> 샤드 i 의 id 는 샤드 i 의 시퀀스에서만 나온다.
+// - id = 시퀀스 값 * ID_STRIDE + 샤드 번호 -> 샤드끼리 id 가 겹치지 않는다. (2차 캐시처럼 id 로만 찾는 곳도 안전)
+public class ShardPooledLoOptimizer extends AbstractOptimizer {
+
+    public static final int ID_STRIDE = ShardRouter.MAX_SHARDS;
+
+    private final Map<Integer, PooledLoOptimizer> optimizers = new ConcurrentHashMap<>();
+    private volatile IntegralDataTypeHolder lastSourceValue;
+
+    public ShardPooledLoOptimizer(Class<?> returnClass, int incrementSize) {
+        super(returnClass, incrementSize);
+        if (returnClass != Long.class) {
+            throw new IllegalArgumentException("샤드 id 는 Long 이어야 합니다: " + returnClass);
+        }
+    }
+
+    @Override
+    public Serializable generate(AccessCallback callback) {
+        Integer current = ShardContext.current();
+        // 샤드가 정해지지 않으면 ShardRoutingDataSource 와 같이 0번 샤드
+        int shard = current == null ? 0 : current;
+        PooledLoOptimizer optimizer = optimizers.computeIfAbsent(shard,
+                key -> new PooledLoOptimizer(Long.class, getIncrementSize()));
+        long value = ((Number) optimizer.generate(callback)).longValue();
+        lastSourceValue = optimizer.getLastSourceValue();
+        return value * ID_STRIDE + shard;
+    }
+
+    @Override
+    public IntegralDataTypeHolder getLastSourceValue() {
+        return lastSourceValue;
+    }
+
+    @Override
+    public boolean applyIncrementSizeToSourceValues() {
+        return true;
+    }
+
+    // INSERT ... SELECT 로 여러 행의 id 를 한 번에 만드는 경로는 샤드 번호를 붙일 수 없다.
+    @Override
+    public Expression createLowValueExpression(Expression databaseValue, SessionFactoryImplementor sessionFactory) {
+        throw new UnsupportedOperationException("sharded ids cannot be generated in bulk insert statements");
+    }
+}
@@ -0,0 +1,28 @@
+package hello.springtx.shard;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.shard")
+public class ShardProperties {
+
+    private boolean enabled = false;
+
+    // 샤드 번호 = 목록의 인덱스. 샤드 수를 바꾸면 username 의 소속 샤드가 바뀌므로 데이터 재배치가 필요하다.
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
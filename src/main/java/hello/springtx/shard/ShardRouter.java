@@ -0,0 +1,33 @@
+package hello.springtx.shard;
+
+// username 해시로 소속 샤드를 정한다. (String.hashCode 는 JVM 과 무관하게 값이 같다.)
+public class ShardRouter {
+
+    // id 에 샤드 번호를 붙이는 간격 (ShardPooledLoOptimizer), 바꾸면 기존 id 와 겹칠 수 있다.
+    public static final int MAX_SHARDS = 64;
+
+    private final int shardCount;
+
+    public ShardRouter(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("샤드가 하나 이상 필요합니다.");
+        }
+        if (shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("샤드는 최대 " + MAX_SHARDS + "개입니다.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    public int shardFor(String username) {
+        // 비슷한 username 들의 hashCode 하위 비트가 몰리지 않도록 섞는다.
+        int hash = username.hashCode();
+        hash ^= hash >>> 16;
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return Math.floorMod(hash, shardCount);
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
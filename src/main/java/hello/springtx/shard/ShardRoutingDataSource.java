@@ -0,0 +1,24 @@
+package hello.springtx.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+// ShardContext 의 샤드로 커넥션을 요청한다.
+// 샤드가 정해지지 않은 경우(하이버네이트 시작 시 메타데이터 조회, AsyncLogWriter/LogOutboxRelay 같은 백그라운드 작업)는 0번 샤드를 사용한다.
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package hello.springtx.shard;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// username 의 소속 샤드를 정한 뒤 MemberService/리포지토리를 호출한다.
+// joinV1 의 외부 트랜잭션과 logRepository.save(REQUIRES_NEW) 는 모두 같은 샤드의 커넥션을 사용한다. -> 한 샤드 안의 로컬 트랜잭션
+//
+// findAll 은 username 들을 샤드별로 나눠서 각 샤드에 동시에 조회하고 합친다. (scatter-gather)
+// 소속 샤드를 알 수 없는 조회(findLogs: 로그 메시지로 조회)는 모든 샤드에 동시에 조회하고 합친다. (fan-out)
+// ShardContext 없이 리포지토리를 직접 호출하면 0번 샤드만 조회하므로, 샤드 모드에서는 이 서비스를 거쳐야 한다.
+
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "spring-tx.shard", name = "enabled", havingValue = "true")
+public class ShardedMemberService implements DisposableBean {
+
+    private final MemberService memberService;
+    private final MemberRepository memberRepository;
+    private final LogRepository logRepository;
+    private final ShardRouter shardRouter;
+    // 샤드 조회는 대부분 커넥션/쿼리 대기 -> 가상 스레드
+    private final ExecutorService scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ShardedMemberService(MemberService memberService,
+                                MemberRepository memberRepository,
+                                LogRepository logRepository,
+                                ShardRouter shardRouter) {
+        this.memberService = memberService;
+        this.memberRepository = memberRepository;
+        this.logRepository = logRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    public void joinV1(String username) {
+        ShardContext.runInShard(shardRouter.shardFor(username), () -> memberService.joinV1(username));
+    }
+
+    public void joinV2(String username) {
+        ShardContext.runInShard(shardRouter.shardFor(username), () -> memberService.joinV2(username));
+    }
+
+    public Optional<Member> find(String username) {
+        return ShardContext.callInShard(shardRouter.shardFor(username), () -> memberRepository.find(username));
+    }
+
+    // 로그 메시지는 username 이다.
+    public Optional<Log> findLog(String username) {
+        return ShardContext.callInShard(shardRouter.shardFor(username), () -> logRepository.find(username));
+    }
+
+    // 소속 샤드와 상관없이 메시지가 같은 로그를 모든 샤드에서 찾는다.
+    public List<Log> findLogs(String message) {
+        Map<Integer, Supplier<List<Log>>> queries = new HashMap<>();
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            queries.put(shard, () -> logRepository.find(message).stream().toList());
+        }
+        return scatter(queries);
+    }
+
+    public List<Member> findAll(Collection<String> usernames) {
+        Map<Integer, List<String>> byShard = new HashMap<>();
+        for (String username : usernames) {
+            byShard.computeIfAbsent(shardRouter.shardFor(username), shard -> new ArrayList<>()).add(username);
+        }
+
+        Map<Integer, Supplier<List<Member>>> queries = new HashMap<>();
+        byShard.forEach((shard, shardUsernames) -> queries.put(shard, () -> memberRepository.findAll(shardUsernames)));
+        return scatter(queries);
+    }
+
+    // 샤드마다 조회를 동시에 실행하고 결과를 합친다.
+    private <T> List<T> scatter(Map<Integer, Supplier<List<T>>> queries) {
+        List<CompletableFuture<List<T>>> results = new ArrayList<>(queries.size());
+        queries.forEach((shard, query) -> results.add(CompletableFuture.supplyAsync(
+                () -> ShardContext.callInShard(shard, query), scatterExecutor)));
+
+        List<T> merged = new ArrayList<>();
+        for (CompletableFuture<List<T>> result : results) {
+            merged.addAll(result.join());
+        }
+        return merged;
+    }
+
+    @Override
+    public void destroy() {
+        scatterExecutor.shutdown();
+    }
+}
@@ -0,0 +1,138 @@
+package hello.springtx.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 트래픽을 받기 전에 커넥션 풀을 채우고, 대표 트랜잭션 경로를 롤백되는 트랜잭션 안에서 반복 실행한다.
+// -> JIT 컴파일, Hibernate 쿼리 플랜 캐시, 커넥션별 prepared statement 캐시가 첫 요청 전에 채워진다.
+//
+// ApplicationReadyEvent 가 트랜잭션을 쓸 수 있는 가장 이른 시점이다. (InitTxTest 참고)
+// 리스너가 동기로 끝난 뒤에 readiness 가 ACCEPTING_TRAFFIC 으로 바뀌므로 /actuator/health/readiness 는 워밍업이 끝날 때까지 트래픽을 받지 않는다.
+//
+// 아무것도 커밋하지 않는다.
+// - 모든 경로를 외부 트랜잭션에 참여시키고, 롤백 직전에 flush 해서 insert 가 실제로 DB 에서 실행되게 한다.
+//   (flush 없이 롤백하면 insert 는 ActionQueue 에만 쌓였다가 버려져서 statement 캐시가 채워지지 않는다)
+// - member/log insert 는 joinV5(NESTED) 로 준비한다. 세이브포인트 해제 때 log 까지 flush 된다.
+// - joinV1, joinV2 는 username 에 "로그예외"를 넣어서 LogRepository.save(REQUIRES_NEW) 가 항상 롤백된다.
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "spring-tx.warmup", name = "enabled", havingValue = "true")
+public class TransactionWarmup {
+
+    private final WarmupProperties properties;
+    private final DataSource dataSource;
+    private final MemberService memberService;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager em;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger completedIterations = new AtomicInteger();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() throws InterruptedException {
+        long start = System.nanoTime();
+        fillPool();
+        runPaths(start + properties.getMaxDuration().toNanos());
+        log.info("워밍업 완료: {}/{}회, {}ms", completedIterations.get(), properties.getIterations(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public int getCompletedIterations() {
+        return completedIterations.get();
+    }
+
+    // 하우스키퍼가 minimumIdle 을 비동기로 채우기를 기다리지 않고, minimumIdle 개를 동시에 빌렸다가 반납한다.
+    private void fillPool() {
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                log.info("HikariDataSource 가 아니므로 풀 채우기를 건너뜀: {}", dataSource);
+                return;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            List<Connection> connections = new ArrayList<>();
+            try {
+                for (int i = 0; i < hikari.getMinimumIdle(); i++) {
+                    connections.add(hikari.getConnection());
+                }
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+            log.info("커넥션 풀 채움: idle={}", hikari.getHikariPoolMXBean().getIdleConnections());
+        } catch (SQLException | RuntimeException e) {
+            log.warn("커넥션 풀 채우기 실패", e);
+        }
+    }
+
+    private void runPaths(long deadline) throws InterruptedException {
+        AtomicInteger remaining = new AtomicInteger(properties.getIterations());
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getThreads());
+        for (int i = 0; i < properties.getThreads(); i++) {
+            executor.execute(() -> {
+                try {
+                    while (System.nanoTime() < deadline && remaining.getAndDecrement() > 0) {
+                        runOnce();
+                        completedIterations.incrementAndGet();
+                    }
+                } catch (RuntimeException e) {
+                    // 워밍업 실패로 애플리케이션을 내리지는 않는다.
+                    log.warn("워밍업 중단", e);
+                }
+            });
+        }
+        executor.shutdown();
+        long timeout = deadline - System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        if (!executor.awaitTermination(timeout, TimeUnit.NANOSECONDS)) {
+            log.warn("워밍업이 제한 시간 안에 끝나지 않음");
+            executor.shutdownNow();
+        }
+    }
+
+    private void runOnce() {
+        String username = "warmup_" + sequence.incrementAndGet();
+        String failingLogUsername = username + "_로그예외";
+
+        inRolledBackTransaction(() -> memberService.joinV5(username));
+        inRolledBackTransaction(() -> {
+            try {
+                memberService.joinV1(failingLogUsername);
+            } catch (RuntimeException e) {
+                // 로그예외 -> joinV1 은 항상 실패한다.
+            }
+        });
+        inRolledBackTransaction(() -> memberService.joinV2(failingLogUsername));
+        memberRepository.find(username);
+    }
+
+    private void inRolledBackTransaction(Runnable action) {
+        transactionTemplate.executeWithoutResult(status -> {
+            action.run();
+            em.flush();
+            status.setRollbackOnly();
+        });
+    }
+}
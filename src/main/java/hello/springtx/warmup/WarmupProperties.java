@@ -0,0 +1,24 @@
+package hello.springtx.warmup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "spring-tx.warmup")
+public class WarmupProperties {
+
+    private boolean enabled = false;
+
+    // 대표 경로(joinV1, joinV2, find) 묶음을 실행할 총 횟수
+    private int iterations = 500;
+
+    // iterations 를 다 채우지 못해도 이 시간이 지나면 멈추고 트래픽을 받는다.
+    private Duration maxDuration = Duration.ofSeconds(20);
+
+    // 동시에 실행할 스레드 수, 서버 측 prepared statement 캐시는 커넥션마다 있으므로 여러 커넥션에 나눠 실행한다.
+    private int threads = 4;
+}
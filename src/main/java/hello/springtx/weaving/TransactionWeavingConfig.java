@@ -0,0 +1,23 @@
+package hello.springtx.weaving;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+// 위빙된 빌드에서는 트랜잭션 프록시를 만들지 않고 바이트코드에 엮인 AnnotationTransactionAspect 에 트랜잭션 매니저만 연결한다.
+// - 프록시 모드와 같이 켜면 프록시 인터셉터와 어스펙트가 트랜잭션을 두 번 연다. 그래서 프로퍼티가 아니라 빌드 결과로 모드를 고른다.
+// - 자기 호출(this.internal())도 트랜잭션이 적용된다. (InternalCallV1Test 참고)
+// - 어스펙트는 클래스로더당 하나이므로 마지막으로 뜬 컨텍스트의 트랜잭션 매니저를 쓴다.
+// - @RetryableTransaction 은 여전히 프록시 어드바이저로 동작하고, 위빙된 트랜잭션은 메서드 본문 안쪽에서 열리므로 재시도마다 새로 시작한다.
+@Slf4j
+@Configuration
+@Conditional(WovenTransactionCondition.class)
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class TransactionWeavingConfig {
+
+    public TransactionWeavingConfig() {
+        log.info("@Transactional advice mode = ASPECTJ (compile-time woven)");
+    }
+}
@@ -0,0 +1,23 @@
+package hello.springtx.weaving;
+
+import hello.springtx.propagation.MemberService;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Arrays;
+
+// ./gradlew -PaspectjWeaving 으로 빌드하면 ajc 가 @Transactional 메서드에 AnnotationTransactionAspect 를 직접 엮는다.
+// 엮인 클래스에는 ajc$tjp_N (JoinPoint.StaticPart) 정적 필드가 추가되므로 MemberService 를 보고 빌드 모드를 판단한다.
+public class WovenTransactionCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return isWoven(MemberService.class);
+    }
+
+    public static boolean isWoven(Class<?> type) {
+        return Arrays.stream(type.getDeclaredFields())
+                .anyMatch(field -> field.getName().startsWith("ajc$"));
+    }
+}
@@ -0,0 +1,83 @@
+package hello.springtx.web;
+
+import hello.springtx.datasource.ConnectionAdmissionLimiter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// 가상 스레드 모드(spring.threads.virtual.enabled=true)에서는 톰캣 스레드 수가 요청 수를 제한하지 않는다.
+// -> 커넥션 풀 크기를 기준으로 요청을 입장시키고, 제한 시간 안에 입장하지 못하면 503 을 반환한다.
+// 비동기 요청(StreamingResponseBody 내보내기 등)은 doFilter 가 반환된 뒤에도 커넥션을 쓴다.
+// -> 비동기 처리가 끝날 때(AsyncListener#onComplete) 입장 허가를 반납한다. (비동기 디스패치에서는 필터를 다시 거치지 않는다.)
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class ConnectionAdmissionFilter extends OncePerRequestFilter {
+
+    private final ConnectionAdmissionLimiter limiter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = limiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+            } else {
+                limiter.release();
+            }
+        }
+    }
+
+    // 타임아웃, 오류로 끝나도 onComplete 는 호출된다.
+    private class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // 같은 요청에서 비동기를 다시 시작하면 리스너가 지워진다. -> 새 AsyncContext 에 다시 등록한다.
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+}
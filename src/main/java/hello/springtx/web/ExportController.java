@@ -0,0 +1,29 @@
+package hello.springtx.web;
+
+import hello.springtx.export.NdjsonExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// StreamingResponseBody 는 요청 스레드를 반환하고 MVC 비동기 실행기(applicationTaskExecutor)에서 응답을 쓴다.
+@RestController
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final NdjsonExporter exporter;
+
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> exportMembers() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exporter::exportMembers);
+    }
+
+    @GetMapping("/logs/export")
+    public ResponseEntity<StreamingResponseBody> exportLogs() {
+        return ResponseEntity.ok().contentType(NDJSON).body(exporter::exportLogs);
+    }
+}
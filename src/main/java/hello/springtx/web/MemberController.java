@@ -0,0 +1,22 @@
+package hello.springtx.web;
+
+import hello.springtx.propagation.MemberService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class MemberController {
+
+    private final MemberService memberService;
+
+    @PostMapping("/members")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void join(@RequestParam String username) {
+        memberService.joinV1(username);
+    }
+}
@@ -0,0 +1,15 @@
+package hello.springtx;
+
+// MySQL 테스트 DB 는 테스트 실행 사이에 비워지지 않고 username 은 유일하다. (uk_member_username)
+// -> 고정된 username 을 쓰는 테스트는 실행마다 다른 접미사를 붙여서 다시 실행해도 중복 가입이 되지 않게 한다.
+public final class TestUsernames {
+
+    private static final String RUN = "_" + Long.toString(System.currentTimeMillis(), 36);
+
+    private TestUsernames() {
+    }
+
+    public static String unique(String name) {
+        return name + RUN;
+    }
+}
@@ -0,0 +1,114 @@
+package hello.springtx.apply;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// TxBasicTest.BasicService.tx() 처럼 SQL 을 실행하지 않는 트랜잭션은 커넥션을 점유하지 않는다.
+
+@Slf4j
+@SpringBootTest(properties = "spring-tx.datasource.lazy-connection.enabled=true")
+class LazyConnectionTest {
+
+    static final String TX = "hello.springtx.apply.LazyConnectionTest$BasicService.tx";
+    static final String TX_WITH_SQL = "hello.springtx.apply.LazyConnectionTest$BasicService.txWithSql";
+
+    @Autowired BasicService basicService;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    void noSql_noConnection() {
+        int active = basicService.tx();
+        log.info("SQL 없는 트랜잭션의 활성 커넥션: {}", active);
+        assertThat(active).isZero();
+    }
+
+    @Test
+    void firstSql_acquireConnection() {
+        int active = basicService.txWithSql();
+        log.info("SQL 실행 후 활성 커넥션: {}", active);
+        assertThat(active).isOne();
+    }
+
+    /**
+     * transaction.connection.hold 는 트랜잭션 시작이 아니라 실제 커넥션 획득부터 잰다.
+     */
+    @Test
+    void noSql_noConnectionHold() {
+        long holds = holdCount(TX);
+
+        basicService.tx();
+
+        assertThat(holdCount(TX)).isEqualTo(holds);
+    }
+
+    @Test
+    void firstSql_connectionHold() {
+        long holds = holdCount(TX_WITH_SQL);
+
+        basicService.txWithSql();
+
+        assertThat(holdCount(TX_WITH_SQL)).isEqualTo(holds + 1);
+        Timer duration = meterRegistry.find("transaction.duration").tag("name", TX_WITH_SQL).tag("outcome", "commit").timer();
+        Timer hold = meterRegistry.find("transaction.connection.hold").tag("name", TX_WITH_SQL).timer();
+        assertThat(hold.totalTime(TimeUnit.NANOSECONDS))
+                .isLessThanOrEqualTo(duration.totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    private long holdCount(String name) {
+        Timer timer = meterRegistry.find("transaction.connection.hold").tag("name", name).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        BasicService basicService(DataSource dataSource, EntityManager em) throws SQLException {
+            return new BasicService(dataSource.unwrap(HikariDataSource.class), em);
+        }
+    }
+
+    @Slf4j
+    static class BasicService {
+
+        private final HikariDataSource hikari;
+        private final EntityManager em;
+
+        BasicService(HikariDataSource hikari, EntityManager em) {
+            this.hikari = hikari;
+            this.em = em;
+        }
+
+        @Transactional
+        public int tx() {
+            return activeConnections();
+        }
+
+        @Transactional
+        public int txWithSql() {
+            em.createQuery("SELECT count(m) FROM Member m").getSingleResult();
+            return activeConnections();
+        }
+
+        private int activeConnections() {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool == null ? 0 : pool.getActiveConnections();
+        }
+    }
+
+}
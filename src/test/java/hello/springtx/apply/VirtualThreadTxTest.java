@@ -0,0 +1,115 @@
+package hello.springtx.apply;
+
+import hello.springtx.datasource.ConnectionAdmissionLimiter;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 트랜잭션 동기화 매니저는 스레드 로컬에 커넥션/트랜잭션 상태를 보관한다.
+// 가상 스레드도 Thread 이므로 스레드 로컬이 그대로 동작한다. -> 플랫폼 스레드와 같은 결과여야 한다.
+
+@Slf4j
+@SpringBootTest(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadTxTest {
+
+    @Autowired CallService callService;
+    @Autowired MemberService memberService;
+    @Autowired ConnectionAdmissionLimiter limiter;
+
+    @Test
+    void txActive_onVirtualThread() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Boolean> isVirtual = executor.submit(() -> Thread.currentThread().isVirtual());
+            Future<Boolean> external = executor.submit(callService::external);
+            Future<Boolean> internal = executor.submit(callService::internal);
+
+            assertThat(isVirtual.get()).isTrue();
+            assertThat(external.get()).isFalse();
+            assertThat(internal.get()).isTrue();
+        }
+    }
+
+    // 같은 동시 요청 수에서 플랫폼 스레드(톰캣 기본 200개)와 가상 스레드의 처리량 비교
+    // 부하 측정이라 test 에서 제외, ./gradlew loadTest 로 실행
+    @Tag("load")
+    @Test
+    void throughput_platform_vs_virtual() throws Exception {
+        int requests = Integer.getInteger("load.requests", 2_000);
+
+        double platform = run(Executors.newFixedThreadPool(200), requests, "platform");
+        double virtual = run(Executors.newVirtualThreadPerTaskExecutor(), requests, "virtual");
+
+        log.info("joinV1 {}건 처리량 - platform: {} req/sec, virtual: {} req/sec",
+                requests, String.format("%.1f", platform), String.format("%.1f", virtual));
+    }
+
+    private double run(ExecutorService executor, int requests, String mode) throws Exception {
+        String prefix = "vt_" + mode + "_" + System.currentTimeMillis() + "_";
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> results = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                String username = prefix + i;
+                results.add(executor.submit(() -> {
+                    // ConnectionAdmissionFilter 와 같은 입장 제한
+                    if (!limiter.tryAcquire()) {
+                        throw new IllegalStateException("입장 대기 시간 초과");
+                    }
+                    try {
+                        memberService.joinV1(username);
+                    } finally {
+                        limiter.release();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        return requests * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        CallService callService() {
+            return new CallService();
+        }
+    }
+
+    @Slf4j
+    static class CallService {
+
+        public boolean external() {
+            return printTxInfo();
+        }
+
+        @Transactional
+        public boolean internal() {
+            return printTxInfo();
+        }
+
+        private boolean printTxInfo() {
+            boolean isActive = TransactionSynchronizationManager.isActualTransactionActive();
+            log.info("thread: {}, isActive: {}", Thread.currentThread(), isActive);
+            return isActive;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package hello.springtx.datasource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 가상 스레드 모드의 입장 제한 -> ConnectionAdmissionFilter 를 거치는 HTTP 요청으로 확인한다.
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring-tx.admission.max-concurrent=1",
+        "spring-tx.admission.timeout=100ms"
+})
+class ConnectionAdmissionTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ConnectionAdmissionLimiter limiter;
+
+    @Test
+    void admitted() throws Exception {
+        mockMvc.perform(post("/members").param("username", unique("admission_admitted")))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * 입장 허가를 모두 점유한 상태에서 요청 -> 제한 시간 뒤 503
+     */
+    @Test
+    void admissionTimeout_503() throws Exception {
+        // given
+        assertThat(limiter.tryAcquire()).isTrue();
+        try {
+            // when, then
+            mockMvc.perform(post("/members").param("username", unique("admission_timeout")))
+                    .andExpect(status().isServiceUnavailable());
+        } finally {
+            limiter.release();
+        }
+
+        mockMvc.perform(post("/members").param("username", unique("admission_afterRelease")))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * 비동기 내보내기는 응답을 다 쓸 때까지 입장 허가를 잡고 있다.
+     */
+    @Test
+    void asyncExport_holdsPermitUntilComplete() throws Exception {
+        // given -> doFilter 는 반환됐지만 응답은 아직 쓰는 중
+        MvcResult export = mockMvc.perform(get("/members/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // when, then
+        mockMvc.perform(post("/members").param("username", unique("admission_duringExport")))
+                .andExpect(status().isServiceUnavailable());
+
+        mockMvc.perform(asyncDispatch(export))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/members").param("username", unique("admission_afterExport")))
+                .andExpect(status().isCreated());
+    }
+
+    /**
+     * 히카리 풀을 찾을 수 없고 max-concurrent 도 없으면 풀 크기를 추측하지 않고 실패한다.
+     */
+    @Test
+    void unknownPool_fails() {
+        AdmissionProperties properties = new AdmissionProperties();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new DriverManagerDataSource("jdbc:h2:mem:admission;DB_CLOSE_DELAY=-1", "sa", ""));
+
+        assertThatThrownBy(() -> new ConnectionAdmissionLimiter(dataSource, properties))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
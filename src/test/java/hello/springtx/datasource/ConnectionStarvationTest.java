@@ -0,0 +1,183 @@
+package hello.springtx.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.LogRepository;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 풀 크기 2 에서 joinV1 과 같은 흐름(외부 트랜잭션 + REQUIRES_NEW)을 동시에 2개 실행한다.
+// 배리어로 두 외부 트랜잭션이 모두 커넥션을 잡은 뒤에 내부 트랜잭션을 시작하게 해서 교착 상태를 항상 재현한다.
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:starvation;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.maximum-pool-size=" + ConnectionStarvationTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=" + ConnectionStarvationTest.CONNECTION_TIMEOUT_MILLIS,
+        "spring-tx.datasource.starvation-guard.enabled=true",
+        "spring-tx.datasource.starvation-guard.reserve-pool-size=1"
+})
+class ConnectionStarvationTest {
+
+    static final int POOL_SIZE = 2;
+    static final long CONNECTION_TIMEOUT_MILLIS = 3_000;
+
+    @Autowired ConnectionStarvationGuard guard;
+    @Autowired JoinService joinService;
+    @Autowired MemberRepository memberRepository;
+
+    @AfterEach
+    void tearDown() {
+        guard.setMode(ConnectionStarvationGuard.Mode.FAIL_FAST);
+    }
+
+    /**
+     * 가드가 감지만 하면 -> 모든 요청이 connectionTimeout 까지 멈췄다가 실패한다.
+     */
+    @Test
+    void deadlock() throws Exception {
+        guard.setMode(ConnectionStarvationGuard.Mode.LOG);
+
+        long start = System.nanoTime();
+        List<Throwable> failures = runConcurrently("deadlock");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("LOG: 실패 {}건, {}ms", failures.size(), elapsedMillis);
+        assertThat(failures).hasSize(POOL_SIZE)
+                .allMatch(CannotCreateTransactionException.class::isInstance);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(CONNECTION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 교착 상태를 만드는 마지막 요청만 즉시 실패 -> 커넥션이 반납되어 나머지는 성공한다.
+     */
+    @Test
+    void failFast() throws Exception {
+        guard.setMode(ConnectionStarvationGuard.Mode.FAIL_FAST);
+
+        long start = System.nanoTime();
+        List<Throwable> failures = runConcurrently("failFast");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        log.info("FAIL_FAST: 실패 {}건, {}ms", failures.size(), elapsedMillis);
+        assertThat(failures).hasSize(1)
+                .allMatch(ConnectionStarvationException.class::isInstance);
+        assertThat(elapsedMillis).isLessThan(CONNECTION_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * 내부 트랜잭션은 예비 풀에서 커넥션을 얻는다 -> 모두 성공한다.
+     */
+    @Test
+    void reservePool() throws Exception {
+        guard.setMode(ConnectionStarvationGuard.Mode.RESERVE_POOL);
+
+        List<Throwable> failures = runConcurrently("reservePool");
+
+        assertThat(failures).isEmpty();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            assertThat(memberRepository.find("reservePool_" + i)).isPresent();
+        }
+    }
+
+    /**
+     * 지연 커넥션은 트랜잭션 시작 시점에 커넥션을 얻지 않는다 -> 가드를 적용할 수 없으므로 시작 시점에 실패한다.
+     */
+    @Test
+    void lazyConnection_fails() {
+        StarvationGuardProperties properties = new StarvationGuardProperties();
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(new HikariDataSource());
+
+        assertThatThrownBy(() -> new StarvationGuardConfig().connectionStarvationGuard(dataSource, properties))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * 예비 풀로 감싸지 못한 dataSource (샤드 라우팅 등) -> 조용히 무시하지 않고 실패한다.
+     */
+    @Test
+    void noReservePool_fails() {
+        StarvationGuardProperties properties = new StarvationGuardProperties();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:starvation", "sa", "");
+
+        assertThatThrownBy(() -> new StarvationGuardConfig().connectionStarvationGuard(dataSource, properties))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private List<Throwable> runConcurrently(String prefix) throws Exception {
+        CyclicBarrier barrier = new CyclicBarrier(POOL_SIZE);
+        List<Throwable> failures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(POOL_SIZE)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < POOL_SIZE; i++) {
+                String username = prefix + "_" + i;
+                results.add(executor.submit(() -> {
+                    joinService.join(username, barrier);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                try {
+                    result.get(CONNECTION_TIMEOUT_MILLIS * 3, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    log.info("실패: {}", e.getCause().toString());
+                    failures.add(e.getCause());
+                }
+            }
+        }
+        return failures;
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        JoinService joinService(MemberRepository memberRepository, LogRepository logRepository) {
+            return new JoinService(memberRepository, logRepository);
+        }
+    }
+
+    // MemberService.joinV1 과 같은 흐름
+    @RequiredArgsConstructor
+    static class JoinService {
+
+        private final MemberRepository memberRepository;
+        private final LogRepository logRepository;
+
+        @Transactional
+        public void join(String username, CyclicBarrier barrier) throws Exception {
+            memberRepository.save(new Member(username));
+            barrier.await(CONNECTION_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            logRepository.save(new Log(username));
+        }
+    }
+
+}
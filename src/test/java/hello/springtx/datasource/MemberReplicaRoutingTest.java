@@ -0,0 +1,106 @@
+package hello.springtx.datasource;
+
+import hello.springtx.propagation.MemberRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// JPA 경로(MemberRepository.find)의 레플리카 라우팅
+// 레플리카 역할의 H2 DB 에만 있는 회원을 넣어두고, 조회 결과로 어느 DB 에서 읽었는지 확인한다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing_primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring-tx.datasource.routing.enabled=true",
+        "spring-tx.datasource.routing.replicas[0].url=" + MemberReplicaRoutingTest.REPLICA_URL,
+        "spring-tx.datasource.routing.replicas[0].username=sa",
+        "spring-tx.datasource.routing.replicas[0].password=",
+        "spring-tx.member.cache.enabled=true"
+})
+class MemberReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired BeginCounter beginCounter;
+
+    @BeforeEach
+    void replicaOnlyMember() {
+        JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+        replica.execute("CREATE TABLE IF NOT EXISTS member (id BIGINT PRIMARY KEY, username VARCHAR(255), version BIGINT)");
+        replica.update("DELETE FROM member");
+        replica.update("INSERT INTO member (id, username, version) VALUES (1, 'replica_only', 0)");
+        replica.update("INSERT INTO member (id, username, version) VALUES (2, 'replica_cached', 0)");
+    }
+
+    /**
+     * memberRepository 트랜잭션 밖 -> 읽기 전용 트랜잭션(레플리카)
+     */
+    @Test
+    void find_outsideTransaction_replica() {
+        assertThat(memberRepository.find("replica_only")).isPresent();
+    }
+
+    /**
+     * 쓰기 트랜잭션  @Tx:ON
+     * memberRepository 참여 -> 프라이머리
+     */
+    @Test
+    void find_insideReadWriteTransaction_primary() {
+        Boolean found = new TransactionTemplate(txManager).execute(status -> memberRepository.find("replica_only").isPresent());
+        assertThat(found).isFalse();
+    }
+
+    /**
+     * 캐시 히트는 트랜잭션을 시작하지 않는다.
+     */
+    @Test
+    void find_cacheHit_noTransaction() {
+        // given
+        int before = beginCounter.count.get();
+        assertThat(memberRepository.find("replica_cached")).isPresent();
+        assertThat(beginCounter.count.get()).isEqualTo(before + 1);
+
+        // when
+        assertThat(memberRepository.find("replica_cached")).isPresent();
+
+        // then
+        assertThat(beginCounter.count.get()).isEqualTo(before + 1);
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        BeginCounter beginCounter() {
+            return new BeginCounter();
+        }
+    }
+
+    static class BeginCounter implements TransactionExecutionListener {
+
+        final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void afterBegin(TransactionExecution transaction, @Nullable Throwable beginFailure) {
+            count.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package hello.springtx.datasource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 프라이머리/레플리카 역할의 H2 메모리 DB 에 각각 node 테이블을 만들어 어느 DB 로 라우팅됐는지 확인한다.
+class ReadOnlyRoutingDataSourceTest {
+
+    DataSource primary = h2("primary");
+    DataSource replica1 = h2("replica1");
+    DataSource replica2 = h2("replica2");
+
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readWriteTx;
+    TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource(
+                primary, List.of(replica1, replica2), ReadOnlyRoutingDataSource.LoadBalance.ROUND_ROBIN);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        readWriteTx = new TransactionTemplate(txManager);
+        readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @Test
+    void readWrite_primary() {
+        assertThat(readWriteTx.execute(status -> currentNode())).isEqualTo("primary");
+    }
+
+    @Test
+    void nonTransactional_primary() {
+        assertThat(currentNode()).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnly_replica() {
+        assertThat(readOnlyTx.execute(status -> currentNode())).startsWith("replica");
+    }
+
+    @Test
+    void readOnly_participating_primary() {
+        // 쓰기 트랜잭션에 참여한 readOnly 논리 트랜잭션은 외부 물리 트랜잭션(프라이머리)을 그대로 사용
+        String node = readWriteTx.execute(status -> readOnlyTx.execute(inner -> currentNode()));
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    void readOnly_roundRobin() {
+        String first = readOnlyTx.execute(status -> currentNode());
+        String second = readOnlyTx.execute(status -> currentNode());
+        assertThat(List.of(first, second)).containsExactlyInAnyOrder("replica1", "replica2");
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static DataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(20))");
+        template.update("DELETE FROM node");
+        template.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+}
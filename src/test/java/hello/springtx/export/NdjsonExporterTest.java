@@ -0,0 +1,103 @@
+package hello.springtx.export;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// H2 는 LAZY_QUERY_EXECUTION=1 이어야 결과 전체를 만들지 않고 fetch size 단위로 읽는다. (MySQL 은 fetchSize=Integer.MIN_VALUE 스트리밍)
+@Slf4j
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export;MODE=MySQL;DB_CLOSE_DELAY=-1;LAZY_QUERY_EXECUTION=1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO"
+})
+class NdjsonExporterTest {
+
+    static final int ROWS = 1_000_000;
+
+    @Autowired NdjsonExporter exporter;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void export_ndjson() throws Exception {
+        memberRepository.saveAll(List.of(new Member("export_a"), new Member("export_b")));
+
+        MvcResult result = mockMvc.perform(get("/members/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // 한 줄에 회원 하나
+        assertThat(body.lines()).anyMatch(line -> line.startsWith("{") && line.contains("\"username\":\"export_a\""));
+        assertThat(body.lines()).anyMatch(line -> line.contains("\"username\":\"export_b\""));
+    }
+
+    // ./gradlew exportTest -> -Xmx128m 에서 실행
+    @Tag("export")
+    @Test
+    void export_1M_rows_constantMemory() throws Exception {
+        // given -> JPA 를 거치지 않고 DB 에서 바로 100만 건 생성
+        transactionTemplate.executeWithoutResult(status -> em.createNativeQuery(
+                        "INSERT INTO member (id, username, version) SELECT x, CONCAT('bulk_', x), 0 FROM SYSTEM_RANGE(1, " + ROWS + ")")
+                .executeUpdate());
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        AtomicLong peakHeap = new AtomicLong();
+        AtomicLong bytes = new AtomicLong();
+        OutputStream discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes.addAndGet(len);
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }
+        };
+
+        // when
+        long start = System.nanoTime();
+        long rows = exporter.exportMembers(discard);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // then
+        log.info("export {}건, {}MB, {}ms, 최대 힙 사용 {}MB / {}MB", rows, bytes.get() / (1024 * 1024), elapsedMillis,
+                peakHeap.get() / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        assertThat(rows).isGreaterThanOrEqualTo(ROWS);
+    }
+
+}
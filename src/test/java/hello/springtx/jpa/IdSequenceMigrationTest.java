@@ -0,0 +1,71 @@
+package hello.springtx.jpa;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static hello.springtx.jpa.IdSequenceMigration.ROLLING_DEPLOY_HEADROOM;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// user-002 이전 구조(member_seq/log_seq, pooled + 50)의 DB 에 새 시퀀스를 만든다.
+class IdSequenceMigrationTest {
+
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:idSequenceMigration;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @BeforeEach
+    void clean() {
+        for (String sequence : new String[]{"member_seq", "log_seq", "member_id_seq", "log_id_seq"}) {
+            jdbcTemplate.execute("DROP SEQUENCE IF EXISTS " + sequence);
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS member");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS log");
+    }
+
+    // 새 시퀀스는 이전 시퀀스 값과 기존 id 보다 ROLLING_DEPLOY_HEADROOM 만큼 뒤에서 시작한다.
+    @Test
+    void migrate() throws Exception {
+        // given -> 이전 노드가 member_seq 에서 101 ~ 150 블록까지 받았다. log 는 시퀀스보다 큰 id 가 이미 있다.
+        jdbcTemplate.execute("CREATE SEQUENCE member_seq START WITH 200 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE SEQUENCE log_seq START WITH 51 INCREMENT BY 50");
+        jdbcTemplate.execute("CREATE TABLE member (id BIGINT NOT NULL PRIMARY KEY, username VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE log (id BIGINT NOT NULL PRIMARY KEY, message VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO member (id, username) VALUES (150, 'a')");
+        jdbcTemplate.update("INSERT INTO log (id, message) VALUES (500, 'a')");
+
+        // when
+        new IdSequenceMigration(dataSource).afterPropertiesSet();
+
+        // then
+        assertThat(nextValue("member_id_seq")).isEqualTo(200 + ROLLING_DEPLOY_HEADROOM);
+        assertThat(nextValue("log_id_seq")).isEqualTo(501 + ROLLING_DEPLOY_HEADROOM);
+    }
+
+    @Test
+    void migrate_idempotent() throws Exception {
+        jdbcTemplate.execute("CREATE SEQUENCE member_seq START WITH 200 INCREMENT BY 50");
+        new IdSequenceMigration(dataSource).afterPropertiesSet();
+        long first = nextValue("member_id_seq");
+
+        // 두 번째 실행(다음 기동)은 이미 있는 새 시퀀스를 바꾸지 않는다.
+        new IdSequenceMigration(dataSource).afterPropertiesSet();
+
+        assertThat(nextValue("member_id_seq")).isEqualTo(first + 100);
+    }
+
+    // 새 DB 에서는 만들지 않는다. -> ddl-auto 가 1부터 만든다.
+    @Test
+    void emptyDatabase_noop() throws Exception {
+        new IdSequenceMigration(dataSource).afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME IN ('MEMBER_ID_SEQ', 'LOG_ID_SEQ')",
+                Long.class)).isZero();
+    }
+
+    private long nextValue(String sequence) {
+        return jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequence, Long.class);
+    }
+}
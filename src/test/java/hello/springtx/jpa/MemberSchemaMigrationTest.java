@@ -0,0 +1,88 @@
+package hello.springtx.jpa;
+
+import hello.springtx.shard.ShardRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// user-019 이전 구조(유니크 제약, version 컬럼 없음)의 member 테이블을 옮긴다.
+class MemberSchemaMigrationTest {
+
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:memberSchemaMigration;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @BeforeEach
+    void legacySchema() {
+        legacySchema(jdbcTemplate);
+        jdbcTemplate.update("INSERT INTO member (id, username) VALUES (1, 'a'), (2, 'b'), (4, NULL), (5, NULL)");
+    }
+
+    @Test
+    void migrate() throws Exception {
+        // when
+        new MemberSchemaMigration(dataSource).afterPropertiesSet();
+
+        // then -> version 은 0, 이후 중복 insert 는 실패
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM member WHERE version = 0", Long.class)).isEqualTo(4);
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO member (id, username, version) VALUES (6, 'b', 0)"));
+    }
+
+    // 중복 username 이 있으면 회원 행을 지우지 않고, 중복 목록과 함께 실패한다.
+    @Test
+    void duplicates_failWithoutDeleting() {
+        // given
+        jdbcTemplate.update("INSERT INTO member (id, username) VALUES (3, 'a')");
+
+        // when, then
+        assertThatThrownBy(() -> new MemberSchemaMigration(dataSource).afterPropertiesSet())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("[a]");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM member", Long.class)).isEqualTo(5);
+    }
+
+    @Test
+    void migrate_idempotent() throws Exception {
+        new MemberSchemaMigration(dataSource).afterPropertiesSet();
+        // version 을 채우는 UPDATE 는 컬럼을 추가한 기동에서만 실행된다.
+        jdbcTemplate.update("INSERT INTO member (id, username, version) VALUES (6, 'c', NULL)");
+
+        // 두 번째 실행(다음 기동)은 아무것도 바꾸지 않는다.
+        new MemberSchemaMigration(dataSource).afterPropertiesSet();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM member", Long.class)).isEqualTo(5);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM member WHERE version IS NULL", Long.class)).isEqualTo(1);
+    }
+
+    // 샤드 모드에서는 0번 샤드뿐 아니라 모든 샤드를 옮긴다.
+    @Test
+    void migrate_allShards() throws Exception {
+        // given
+        DriverManagerDataSource shard1 = new DriverManagerDataSource(
+                "jdbc:h2:mem:memberSchemaMigration_shard1;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate shard1Template = new JdbcTemplate(shard1);
+        legacySchema(shard1Template);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(Map.of(0, dataSource, 1, shard1));
+        routing.setDefaultTargetDataSource(dataSource);
+        routing.afterPropertiesSet();
+
+        // when
+        new MemberSchemaMigration(routing).afterPropertiesSet();
+
+        // then
+        shard1Template.update("INSERT INTO member (id, username, version) VALUES (1, 'a', 0)");
+        assertThatThrownBy(() -> shard1Template.update("INSERT INTO member (id, username, version) VALUES (2, 'a', 0)"));
+    }
+
+    private static void legacySchema(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS member");
+        jdbcTemplate.execute("CREATE TABLE member (id BIGINT NOT NULL PRIMARY KEY, username VARCHAR(255))");
+    }
+}
@@ -0,0 +1,160 @@
+package hello.springtx.metrics;
+
+import hello.springtx.propagation.MemberService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest
+class TransactionMetricsTest {
+
+    static final String JOIN_V1 = "hello.springtx.propagation.MemberService.joinV1";
+    static final String JOIN_V2 = "hello.springtx.propagation.MemberService.joinV2";
+    static final String LOG_SAVE = "hello.springtx.propagation.LogRepository.save";
+
+    @Autowired MemberService memberService;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void commit() {
+        long before = count(JOIN_V1, "commit");
+        long suspensions = suspensions(LOG_SAVE);
+
+        memberService.joinV1(unique("metrics_commit"));
+
+        // joinV1 커밋 1회, logRepository.save(REQUIRES_NEW) 가 joinV1 트랜잭션을 보류
+        assertThat(count(JOIN_V1, "commit")).isEqualTo(before + 1);
+        assertThat(suspensions(LOG_SAVE)).isEqualTo(suspensions + 1);
+    }
+
+    @Test
+    void rollback() {
+        long before = count(JOIN_V1, "rollback");
+        long logRollback = count(LOG_SAVE, "rollback");
+
+        assertThatThrownBy(() -> memberService.joinV1(unique("로그예외_metrics_rollback")));
+
+        assertThat(count(JOIN_V1, "rollback")).isEqualTo(before + 1);
+        assertThat(count(LOG_SAVE, "rollback")).isEqualTo(logRollback + 1);
+    }
+
+    @Test
+    void recover() {
+        long commit = count(JOIN_V2, "commit");
+        long logRollback = count(LOG_SAVE, "rollback");
+
+        // 로그 트랜잭션(REQUIRES_NEW)만 롤백되고 joinV2 는 커밋
+        memberService.joinV2(unique("로그예외_metrics_recover"));
+
+        assertThat(count(JOIN_V2, "commit")).isEqualTo(commit + 1);
+        assertThat(count(LOG_SAVE, "rollback")).isEqualTo(logRollback + 1);
+    }
+
+    /**
+     * 외부 트랜잭션  @Tx:ON commit 요청
+     * 내부 트랜잭션  @Tx:ON (참여) RuntimeException -> rollback-only 마킹, 외부에서 예외를 잡는다.
+     */
+    @Test
+    void rollbackOnly_onCommit() {
+        TransactionTemplate outer = template("metrics_rollbackOnly_onCommit");
+        long rollbackOnly = count("metrics_rollbackOnly_onCommit", "rollback_only");
+
+        assertThatThrownBy(() -> outer.executeWithoutResult(status -> failInner()))
+                .isInstanceOf(UnexpectedRollbackException.class);
+
+        assertThat(count("metrics_rollbackOnly_onCommit", "rollback_only")).isEqualTo(rollbackOnly + 1);
+    }
+
+    /**
+     * rollback-only 로 마킹된 외부 트랜잭션이 예외로 끝나면 commit 을 요청하지 않았으므로 rollback
+     */
+    @Test
+    void rollbackOnly_thenException_rollback() {
+        TransactionTemplate outer = template("metrics_rollbackOnly_thenException");
+        long rollback = count("metrics_rollbackOnly_thenException", "rollback");
+        long rollbackOnly = count("metrics_rollbackOnly_thenException", "rollback_only");
+
+        assertThatThrownBy(() -> outer.executeWithoutResult(status -> {
+            failInner();
+            throw new IllegalStateException("외부 예외");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(count("metrics_rollbackOnly_thenException", "rollback")).isEqualTo(rollback + 1);
+        assertThat(count("metrics_rollbackOnly_thenException", "rollback_only")).isEqualTo(rollbackOnly);
+    }
+
+    /**
+     * 외부 트랜잭션 commit -> afterCommit 에서 시작한 새 트랜잭션이 예외로 롤백
+     * 바깥 commit 이 진행 중이어도 이 롤백은 commit 요청이 아니므로 rollback
+     */
+    @Test
+    void exceptionInAfterCommit_rollback() {
+        TransactionTemplate afterCommit = template("metrics_afterCommit");
+        afterCommit.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        long rollback = count("metrics_afterCommit", "rollback");
+        long rollbackOnly = count("metrics_afterCommit", "rollback_only");
+
+        template("metrics_afterCommit_outer").executeWithoutResult(status ->
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        assertThatThrownBy(() -> afterCommit.executeWithoutResult(inner -> {
+                            throw new IllegalStateException("afterCommit 예외");
+                        })).isInstanceOf(IllegalStateException.class);
+                    }
+                }));
+
+        assertThat(count("metrics_afterCommit", "rollback")).isEqualTo(rollback + 1);
+        assertThat(count("metrics_afterCommit", "rollback_only")).isEqualTo(rollbackOnly);
+    }
+
+    // 트랜잭션 매니저를 감싸지 않으므로 구체 타입으로 주입받을 수 있다.
+    @Test
+    void transactionManager_notProxied() {
+        assertThat(txManager).isExactlyInstanceOf(JpaTransactionManager.class);
+    }
+
+    private void failInner() {
+        try {
+            new TransactionTemplate(txManager).executeWithoutResult(status -> {
+                throw new IllegalStateException("내부 예외");
+            });
+        } catch (IllegalStateException e) {
+            log.info("내부 트랜잭션 예외를 잡음");
+        }
+    }
+
+    private TransactionTemplate template(String name) {
+        TransactionTemplate template = new TransactionTemplate(txManager);
+        template.setName(name);
+        return template;
+    }
+
+    private long count(String name, String outcome) {
+        Timer timer = meterRegistry.find("transaction.duration").tag("name", name).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private long suspensions(String name) {
+        Counter counter = meterRegistry.find("transaction.suspensions").tag("name", name).counter();
+        return counter == null ? 0 : (long) counter.count();
+    }
+
+}
@@ -0,0 +1,108 @@
+package hello.springtx.metrics;
+
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.profiler.enabled=true",
+        "spring-tx.profiler.sample-rate=1.0",
+        "spring-tx.profiler.hold-time-threshold=1s",
+        "spring-tx.profiler.idle-ratio-threshold=0.5",
+        "spring-tx.profiler.min-hold-time=50ms"
+})
+class TransactionProfilerTest {
+
+    @Autowired TransactionProfiler profiler;
+    @Autowired SlowService slowService;
+    @Autowired MemberService memberService;
+
+    // SQL 사이에 DB 와 무관한 작업을 하느라 커넥션을 쥔 채로 쉬는 트랜잭션
+    @Test
+    void idleInTransaction_flagged() throws InterruptedException {
+        slowService.joinWithWork(unique("profiler_idle"));
+
+        TransactionProfile report = findReport("SlowService.joinWithWork");
+        log.info("report: {}", report);
+        assertThat(report.idleRatio()).isGreaterThanOrEqualTo(0.5);
+        assertThat(report.holdMillis()).isGreaterThanOrEqualTo(100);
+        assertThat(report.statements()).isPositive();
+        assertThat(report.timeline()).extracting(TransactionProfile.Segment::type).contains("sql", "idle");
+        assertThat(report.stack()).anyMatch(frame -> frame.contains("TransactionProfilerTest"));
+    }
+
+    // prepare 와 execute 를 따로 세지 않는다. -> SQL 2개면 문장 2개, sql 구간 2개
+    @Test
+    void statements_countedOnce() throws InterruptedException {
+        slowService.twoQueries();
+
+        TransactionProfile report = findReport("SlowService.twoQueries");
+        assertThat(report.statements()).isEqualTo(2);
+        assertThat(report.timeline()).filteredOn(segment -> segment.type().equals("sql")).hasSize(2);
+    }
+
+    @Test
+    void shortTransaction_notFlagged() {
+        long flagged = profiler.getFlaggedCount();
+
+        memberService.joinV1(unique("profiler_short"));
+
+        assertThat(profiler.getSampledCount()).isPositive();
+        assertThat(profiler.getFlaggedCount()).isEqualTo(flagged);
+    }
+
+    private TransactionProfile findReport(String name) {
+        List<TransactionProfile> reports = profiler.getReports();
+        return reports.stream()
+                .filter(report -> report.name().endsWith(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("기록 없음: " + name + ", " + reports));
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        SlowService slowService(MemberRepository memberRepository, EntityManager em) {
+            return new SlowService(memberRepository, em);
+        }
+    }
+
+    @RequiredArgsConstructor
+    static class SlowService {
+
+        private final MemberRepository memberRepository;
+        private final EntityManager em;
+
+        @Transactional
+        public void joinWithWork(String username) throws InterruptedException {
+            memberRepository.save(new Member(username));
+            memberRepository.find(username);
+            // 외부 API 호출, 메시지 조립 등
+            Thread.sleep(150);
+        }
+
+        // 유휴 시간을 둬서 기준(idle-ratio)을 넘겨 기록되게 한다.
+        @Transactional
+        public void twoQueries() throws InterruptedException {
+            em.createNativeQuery("SELECT 1").getSingleResult();
+            em.createNativeQuery("SELECT 2").getSingleResult();
+            Thread.sleep(100);
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static hello.springtx.TestUsernames.unique;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.log.async.enabled=true",
+        "spring-tx.log.async.flush-interval=20ms"
+})
+class AsyncLogWriterTest {
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * asyncLogWriter   배치 트랜잭션(REQUIRES_NEW)
+     */
+    @Test
+    void joinV3_success() {
+        // given
+        String username = unique("joinV3_success");
+
+        // when -> Member 는 호출 트랜잭션에서 커밋, Log 는 백그라운드 배치로 커밋
+        memberService.joinV3(username);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(awaitLog(username));
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * asyncLogWriter   배치 트랜잭션(REQUIRES_NEW) RuntimeException
+     */
+    @Test
+    void joinV3_logFailure() {
+        // given
+        String failUsername = unique("로그예외_joinV3_logFailure");
+        String username = unique("joinV3_logFailure");
+
+        // when -> 배치 롤백 후 건별 재시도, 예외 로그만 저장 실패
+        memberService.joinV3(failUsername);
+        memberService.joinV3(username);
+
+        // then -> 로그 저장 실패가 호출자에게 전파되지 않고, 같은 배치의 다른 로그는 저장된다.
+        Assertions.assertTrue(memberRepository.find(failUsername).isPresent());
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(awaitLog(username));
+        Assertions.assertTrue(logRepository.find(failUsername).isEmpty());
+    }
+
+    /**
+     * 외부 트랜잭션     @Tx:ON rollback
+     * memberService    @Tx:ON (참여)
+     * asyncLogWriter   afterCommit 에서만 큐에 넣는다.
+     */
+    @Test
+    void joinV3_rollback() throws InterruptedException {
+        // given
+        String username = unique("joinV3_rollback");
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> {
+            memberService.joinV3(username);
+            status.setRollbackOnly();
+        });
+        Thread.sleep(200);
+
+        // then -> 회원 가입이 롤백되었으므로 로그도 저장하지 않는다.
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+        Assertions.assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    // 종료 시점까지 받은 로그는 stop() 이 끝나기 전에 모두 저장되고, 종료 후의 로그는 호출 스레드에서 바로 저장된다.
+    @Test
+    void stop_savesAccepted() {
+        // given
+        AsyncLogProperties properties = new AsyncLogProperties();
+        properties.setEnabled(true);
+        properties.setFlushInterval(Duration.ofSeconds(1));
+        AsyncLogWriter writer = new AsyncLogWriter(logRepository, properties);
+        writer.start();
+
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String message = unique("stop_savesAccepted");
+            messages.add(message);
+            writer.write(new Log(message));
+        }
+
+        // when
+        writer.stop();
+        String afterStop = unique("stop_savesAccepted_afterStop");
+        writer.write(new Log(afterStop));
+
+        // then
+        Assertions.assertEquals(0, writer.getPendingCount());
+        for (String message : messages) {
+            Assertions.assertTrue(logRepository.find(message).isPresent());
+        }
+        Assertions.assertTrue(logRepository.find(afterStop).isPresent());
+    }
+
+    // 쓰기 스레드가 제한 시간 안에 끝나지 않아도, stop() 은 저장 중인 배치가 끝난 뒤에 나머지를 저장한다. -> 동시에 저장하지 않는다.
+    @Test
+    void stop_slowFlush_noConcurrentSave() {
+        // given -> 배치 저장이 stop() 의 대기 시간(flushInterval * 10 + 1s)보다 오래 걸린다.
+        AsyncLogProperties properties = new AsyncLogProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(1);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        SlowLogRepository slowRepository = new SlowLogRepository(Duration.ofMillis(1500));
+        AsyncLogWriter writer = new AsyncLogWriter(slowRepository, properties);
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.write(new Log(unique("stop_slowFlush")));
+        }
+
+        // when
+        writer.stop();
+
+        // then
+        Assertions.assertEquals(3, slowRepository.saved.get());
+        Assertions.assertEquals(1, slowRepository.maxConcurrent.get());
+    }
+
+    private boolean awaitLog(String message) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (logRepository.find(message).isPresent()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+
+    // 저장하지 않고 시간만 보내면서, 동시에 저장 중인 스레드 수를 기록한다.
+    static class SlowLogRepository extends LogRepository {
+        final AtomicInteger saved = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final Duration delay;
+
+        SlowLogRepository(Duration delay) {
+            super(null, null);
+            this.delay = delay;
+        }
+
+        @Override
+        public void save(Log logMessage) {
+            saveAll(List.of(logMessage));
+        }
+
+        @Override
+        public void saveAll(List<Log> logMessages) {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            saved.addAndGet(logMessages.size());
+        }
+    }
+}
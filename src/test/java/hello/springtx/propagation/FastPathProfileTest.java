@@ -0,0 +1,61 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+
+// fastpath 프로필: 같은 커넥션에서 반복 조회하면 서버 측 prepare 는 한 번만 일어나고 이후에는 execute 만 보낸다.
+// Com_stmt_prepare / Com_stmt_execute 는 MySQL 세션(커넥션)별 카운터 -> 하나의 트랜잭션 안에서 측정한다.
+
+@Slf4j
+@SpringBootTest
+@ActiveProfiles("fastpath")
+class FastPathProfileTest {
+
+    static final int LOOKUPS = 100;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void find_preparedOnce() {
+        memberRepository.save(new Member(unique("fastPath")));
+
+        TransactionTemplate readOnlyTx = new TransactionTemplate(txManager);
+        readOnlyTx.setReadOnly(true);
+        readOnlyTx.executeWithoutResult(status -> {
+            long prepareBefore = sessionStatus("Com_stmt_prepare");
+            long executeBefore = sessionStatus("Com_stmt_execute");
+
+            for (int i = 0; i < LOOKUPS; i++) {
+                // 참여한 트랜잭션에서 같은 엔티티를 조회 -> 매번 SQL 을 실행한다.
+                assertThat(memberRepository.find(unique("fastPath"))).isPresent();
+            }
+
+            long prepares = sessionStatus("Com_stmt_prepare") - prepareBefore;
+            long executes = sessionStatus("Com_stmt_execute") - executeBefore;
+            log.info("조회 {}회 -> prepare: {}, execute: {}", LOOKUPS, prepares, executes);
+
+            // 상태 조회 SQL 자신의 prepare 를 포함해도 조회 SQL 의 prepare 는 최초 1회뿐이다.
+            assertThat(prepares).isLessThanOrEqualTo(2);
+            assertThat(executes).isGreaterThanOrEqualTo(LOOKUPS);
+        });
+    }
+
+    private long sessionStatus(String name) {
+        Object[] row = (Object[]) em
+                .createNativeQuery("SHOW SESSION STATUS LIKE '" + name + "'")
+                .getSingleResult();
+        return Long.parseLong(row[1].toString());
+    }
+
+}
@@ -0,0 +1,54 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.IntFunction;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class IdBlockAllocationTest {
+
+    static final int COUNT = 1_000;
+
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    // 변경 전(LegacyIdMember: pooled + 50)과 변경 후(Member: pooled-lo + 100)를 같은 조건에서 측정한다.
+    @Test
+    void persist_1000_members() {
+        // when -> 하나의 트랜잭션에서 1,000건 persist
+        long before = persist(i -> new LegacyIdMember(unique("legacyIdBlock_" + i)));
+        long after = persist(i -> new Member(unique("idBlock_" + i)));
+
+        // then -> insert 는 둘 다 JDBC 배치, 달라지는 것은 id 블록 조회 횟수
+        log.info("persist {}건 -> statement 수: 변경 전 {}, 변경 후 {}", COUNT, before, after);
+        assertThat(after).isLessThan(before);
+    }
+
+    // 실행한 statement 수 (시퀀스 조회 + insert 배치)
+    private long persist(IntFunction<Object> entity) {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            for (int i = 0; i < COUNT; i++) {
+                em.persist(entity.apply(i));
+            }
+        });
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(COUNT);
+        return statistics.getPrepareStatementCount();
+    }
+
+}
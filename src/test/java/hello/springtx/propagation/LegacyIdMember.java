@@ -0,0 +1,34 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.OptimizableGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+// IdBlockAllocationTest 의 비교 대상: user-002 이전 Member 의 id 매핑
+// @GeneratedValue(AUTO) 기본값 = 시퀀스 + pooled 옵티마이저 + allocationSize 50
+// (pooled-lo 가 전역 설정이므로 옵티마이저를 직접 지정한다.)
+@Entity
+@Getter
+@NoArgsConstructor
+public class LegacyIdMember {
+
+    @Id
+    @GeneratedValue(generator = "legacy_member_id")
+    @GenericGenerator(name = "legacy_member_id", type = SequenceStyleGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "legacy_id_member_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = OptimizableGenerator.OPT_PARAM, value = "pooled")
+    })
+    private Long id;
+    private String username;
+
+    public LegacyIdMember(String username) {
+        this.username = username;
+    }
+}
@@ -0,0 +1,80 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static hello.springtx.TestUsernames.unique;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.log.group-commit.enabled=true",
+        "spring-tx.log.group-commit.window=50ms"
+})
+class LogGroupCommitTest {
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired LogGroupCommitter logGroupCommitter;
+
+    /**
+     * 커미터가 멈춘 뒤에 들어온 요청은 큐에서 기다리지 않고 바로 저장된다.
+     */
+    @Test
+    void save_afterStop() {
+        logGroupCommitter.stop();
+        try {
+            String message = unique("groupCommit_afterStop");
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> logGroupCommitter.save(new Log(message)));
+            Assertions.assertTrue(logRepository.find(message).isPresent());
+        } finally {
+            logGroupCommitter.start();
+        }
+    }
+
+    /**
+     * memberService     @Tx:ON
+     * memberRepository  @Tx:ON
+     * logGroupCommitter 그룹 트랜잭션, 그룹 중 한 건 RuntimeException
+     */
+    @Test
+    void joinV4_concurrent() throws Exception {
+        // given
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            usernames.add(unique("joinV4_" + i));
+        }
+        String failUsername = unique("로그예외_joinV4");
+        usernames.add(failUsername);
+
+        // when -> 동시에 가입, 로그는 같은 그룹으로 묶여 커밋된다.
+        try (ExecutorService executor = Executors.newFixedThreadPool(usernames.size())) {
+            List<Future<?>> results = new ArrayList<>();
+            for (String username : usernames) {
+                results.add(executor.submit(() -> memberService.joinV4(username)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        // then -> 모든 Member 저장, 실패한 한 건의 로그만 롤백
+        for (String username : usernames) {
+            Assertions.assertTrue(memberRepository.find(username).isPresent());
+        }
+        for (String username : usernames.subList(0, 8)) {
+            Assertions.assertTrue(logRepository.find(username).isPresent());
+        }
+        Assertions.assertTrue(logRepository.find(failUsername).isEmpty());
+    }
+
+}
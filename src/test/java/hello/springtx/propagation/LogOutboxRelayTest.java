@@ -0,0 +1,142 @@
+package hello.springtx.propagation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.log.outbox.enabled=true",
+        "spring-tx.log.outbox.poll-interval=20ms"
+})
+class LogOutboxRelayTest {
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+    @Autowired LogOutboxSink sink;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+    @Autowired LogOutboxRepository outboxRepository;
+    @Autowired MeterRegistry meterRegistry;
+
+    /**
+     * memberService       @Tx:ON
+     * memberRepository    @Tx:ON (참여)
+     * logOutboxRepository @Tx:ON (참여)
+     */
+    @Test
+    void joinV6_success() {
+        // given
+        String username = unique("joinV6_success");
+
+        // when -> Member 와 아웃박스 이벤트가 한 트랜잭션으로 커밋, Log 는 릴레이가 옮긴다.
+        memberService.joinV6(username);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(awaitLog(username));
+    }
+
+    /**
+     * 외부 트랜잭션       @Tx:ON rollback
+     * memberService       @Tx:ON (참여)
+     */
+    @Test
+    void joinV6_rollback() throws InterruptedException {
+        // given
+        String username = unique("joinV6_rollback");
+
+        // when -> 아웃박스 이벤트도 함께 롤백되므로 릴레이가 옮길 로그가 없다.
+        transactionTemplate.executeWithoutResult(status -> {
+            memberService.joinV6(username);
+            status.setRollbackOnly();
+        });
+        Thread.sleep(200);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+        Assertions.assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    // 아웃박스 삭제 전에 실패해서 같은 이벤트가 다시 전달되어도 로그는 한 건
+    @Test
+    void redelivery_idempotent() {
+        // given
+        LogOutbox event = new LogOutbox("redelivery_idempotent");
+
+        // when
+        transactionTemplate.executeWithoutResult(status -> sink.deliver(List.of(event)));
+        transactionTemplate.executeWithoutResult(status -> sink.deliver(List.of(event)));
+
+        // then
+        Long count = transactionTemplate.execute(status -> em
+                .createQuery("SELECT COUNT(l) FROM Log l WHERE l.eventKey = :eventKey", Long.class)
+                .setParameter("eventKey", event.getEventKey())
+                .getSingleResult());
+        assertThat(count).isOne();
+    }
+
+    // 백로그는 건수와 가장 오래된 생성 시각을 한 번에 조회하고, 게이지는 릴레이가 켜져 있을 때만 등록된다.
+    @Test
+    void backlog() {
+        // given -> max-attempts(10) 에 도달한 이벤트는 릴레이가 옮기지 않는다.
+        LogOutbox event = new LogOutbox("backlog");
+        event.setAttempts(10);
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.append(event));
+
+        // when -> 릴레이는 대기 건수를 줄이기만 하므로 포함하는 쪽을 먼저 조회한다.
+        LogOutboxBacklog included = outboxRepository.backlog(11);
+        LogOutboxBacklog excluded = outboxRepository.backlog(10);
+
+        // then
+        assertThat(included.pending()).isGreaterThan(excluded.pending());
+        assertThat(included.oldestCreatedAt()).isNotNull();
+        assertThat(meterRegistry.find("log.outbox.backlog").gauge()).isNotNull();
+        assertThat(meterRegistry.find("log.outbox.oldest.age").gauge()).isNotNull();
+    }
+
+    // 릴레이가 꺼져 있으면 백로그 게이지를 등록하지 않는다. -> 메트릭 수집이 아웃박스 테이블을 조회하지 않는다.
+    @Test
+    void disabled_noBacklogGauge() {
+        // given
+        LogOutboxProperties properties = new LogOutboxProperties();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LogOutboxRelay disabled = new LogOutboxRelay(outboxRepository, sink, transactionTemplate, properties, registry);
+
+        // when
+        disabled.start();
+
+        // then
+        assertThat(disabled.isRunning()).isFalse();
+        assertThat(registry.find("log.outbox.backlog").gauge()).isNull();
+        assertThat(registry.find("log.outbox.oldest.age").gauge()).isNull();
+    }
+
+    private boolean awaitLog(String message) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (logRepository.find(message).isPresent()) {
+                return true;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+}
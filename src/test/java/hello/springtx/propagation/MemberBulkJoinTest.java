@@ -0,0 +1,115 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static hello.springtx.TestUsernames.unique;
+
+@Slf4j
+@SpringBootTest
+class MemberBulkJoinTest {
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired LogRepository logRepository;
+
+    /**
+     * memberService    청크 트랜잭션
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) 청크 중 한 건 RuntimeException
+     */
+    @Test
+    void joinAll_logFailure_recover() {
+        // given
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            usernames.add(unique("joinAll_" + i));
+        }
+        String failUsername = unique("로그예외_joinAll");
+        usernames.add(120, failUsername);
+
+        // when -> 청크 2번(100~199)의 로그 배치가 롤백되고 건별로 재시도, Member 는 모두 커밋
+        BulkJoinResult result = memberService.joinAll(usernames, 100);
+
+        // then
+        Assertions.assertEquals(usernames.size(), result.joined());
+        Assertions.assertTrue(result.failedUsernames().isEmpty());
+        Assertions.assertTrue(memberRepository.find(failUsername).isPresent());
+        Assertions.assertTrue(logRepository.find(failUsername).isEmpty());
+        Assertions.assertTrue(memberRepository.find(unique("joinAll_119")).isPresent());
+        Assertions.assertTrue(logRepository.find(unique("joinAll_119")).isPresent());
+        Assertions.assertTrue(logRepository.find(unique("joinAll_249")).isPresent());
+    }
+
+    /**
+     * memberService    청크 트랜잭션
+     * memberRepository @Tx:ON 청크 중 한 건 username 유니크 제약 위반
+     */
+    @Test
+    void joinAll_memberFailure_retryPerItem() {
+        // given
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            usernames.add(unique("joinAll_retry_" + i));
+        }
+        String duplicate = usernames.get(3);
+        usernames.add(duplicate);
+
+        // when -> 청크 전체가 롤백된 뒤 건별로 다시 저장, 중복된 한 건만 실패
+        BulkJoinResult result = memberService.joinAll(usernames, 100);
+
+        // then
+        Assertions.assertEquals(usernames.size() - 1, result.joined());
+        Assertions.assertEquals(List.of(duplicate), result.failedUsernames());
+        Assertions.assertTrue(memberRepository.find(usernames.get(0)).isPresent());
+        Assertions.assertTrue(memberRepository.find(duplicate).isPresent());
+        Assertions.assertTrue(logRepository.find(usernames.get(9)).isPresent());
+    }
+
+    @Test
+    void joinAll_closesStream() {
+        // given
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<String> usernames = Stream.of(unique("joinAll_stream")).onClose(() -> closed.set(true));
+
+        // when
+        memberService.joinAll(usernames, 100);
+
+        // then
+        Assertions.assertTrue(closed.get());
+    }
+
+    // 기본 1만건, -Dbulk.rows=1000000 으로 100만건 측정
+    @Test
+    void joinAll_throughput() {
+        int rows = Integer.getInteger("bulk.rows", 10_000);
+        String prefix = "bulk_" + System.currentTimeMillis() + "_";
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        long joined = memberService.joinAll(IntStream.range(0, rows).mapToObj(i -> prefix + i), MemberService.DEFAULT_CHUNK_SIZE).joined();
+        long elapsedNanos = System.nanoTime() - start;
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        log.info("joinAll {}건: {} ms, {} rows/sec, heap high-water {} MB",
+                joined, elapsedNanos / 1_000_000, joined * 1_000_000_000L / elapsedNanos, peakHeap / (1024 * 1024));
+
+        Assertions.assertEquals(rows, joined);
+    }
+
+}
@@ -0,0 +1,88 @@
+package hello.springtx.propagation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static hello.springtx.TestUsernames.unique;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.member.cache.enabled=true",
+        "spring-tx.member.cache.negative-ttl=" + MemberCacheTest.NEGATIVE_TTL_MILLIS + "ms"
+})
+class MemberCacheTest {
+    static final long NEGATIVE_TTL_MILLIS = 200;
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberCache memberCache;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void find_cached() {
+        // given
+        String username = unique("memberCache_find");
+        memberService.joinV1(username);
+
+        // when
+        memberRepository.find(username);
+        long hitCount = memberCache.stats().hitCount();
+        memberRepository.find(username);
+
+        // then
+        assertThat(memberCache.stats().hitCount()).isEqualTo(hitCount + 1);
+    }
+
+    @Test
+    void save_evictAfterCommit() {
+        // given -> "없음" 결과가 캐시된 상태
+        String username = unique("memberCache_evict");
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+
+        // when -> 커밋 후 캐시에서 제거
+        memberService.joinV1(username);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+    }
+
+    // 캐시를 거치지 않고 저장된 회원(지연된 레플리카, 제거 누락)도 "없음" 결과는 negative-ttl 뒤에 보인다.
+    @Test
+    void miss_expiresAfterNegativeTtl() throws InterruptedException {
+        // given -> "없음" 결과가 캐시된 뒤 캐시 제거 없이 저장
+        String username = unique("memberCache_negativeTtl");
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+        jdbcTemplate.update("INSERT INTO member (id, username, version) VALUES (?, ?, 0)", -System.nanoTime(), username);
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+
+        // when
+        Thread.sleep(NEGATIVE_TTL_MILLIS * 2);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON RuntimeException
+     */
+    @Test
+    void rollback_notCached() {
+        // given
+        String username = unique("로그예외_memberCache_rollback");
+
+        // when -> 외부 트랜잭션 롤백, 캐시에는 아무것도 남지 않는다.
+        assertThatThrownBy(() -> memberService.joinV1(username));
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+    }
+
+}
@@ -0,0 +1,143 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Member 2차 캐시 + username 쿼리 캐시가 MemberServiceTest 의 전파 시나리오에서 커밋된 데이터만 보여주는지 확인한다.
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:secondLevelCache;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MemberSecondLevelCacheTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    SessionFactory sessionFactory;
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        statistics.clear();
+    }
+
+    /**
+     * 커밋된 Member 는 두 번째 조회부터 쿼리 캐시(username -> id)와 엔티티 캐시에서 읽는다.
+     */
+    @Test
+    void find_hit() {
+        // given
+        String username = "cache_find_hit";
+        memberService.joinV1(username);
+
+        // when
+        memberRepository.find(username);
+        long queries = statistics.getQueryExecutionCount();
+        Member member = memberRepository.find(username).orElseThrow();
+
+        // then
+        assertThat(member.getUsername()).isEqualTo(username);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(queries);
+        assertThat(statistics.getQueryCacheHitCount()).isPositive();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    /**
+     * MemberServiceTest.outerTxOn_fail 과 같은 흐름
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON RuntimeException
+     * 조회 결과("없음")가 캐시된 상태에서 롤백되어도 캐시는 계속 "없음"이다.
+     */
+    @Test
+    void outerTxOn_fail() {
+        // given
+        String username = "로그예외_cache_outerTxOn_fail";
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        // when
+        assertThatThrownBy(() -> memberService.joinV1(username));
+
+        // then
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(statistics.getDomainDataRegionStatistics(Member.REGION).getPutCount()).isZero();
+    }
+
+    /**
+     * 트랜잭션 안에서 저장한 뒤 조회해서 쿼리/엔티티가 로드되어도, 롤백되면 캐시에 남지 않는다.
+     */
+    @Test
+    void rollback_afterFindInTx() {
+        // given
+        String username = "cache_rollback_afterFindInTx";
+
+        // when
+        Long id = transactionTemplate.execute(status -> {
+            Member member = new Member(username);
+            memberRepository.save(member);
+            assertThat(memberRepository.find(username)).isPresent();
+            status.setRollbackOnly();
+            return member.getId();
+        });
+
+        // then
+        assertThat(sessionFactory.getCache().containsEntity(Member.class, id)).isFalse();
+        assertThat(memberRepository.find(username)).isEmpty();
+    }
+
+    /**
+     * "없음" 결과가 캐시된 username 도 가입이 커밋되면 쿼리 캐시가 무효화되어 바로 조회된다.
+     */
+    @Test
+    void commit_invalidatesQueryCache() {
+        // given
+        String username = "cache_commit_invalidates";
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(memberRepository.find(username)).isEmpty();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // when
+        memberService.joinV1(username);
+
+        // then
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * saveIfAbsent(JDBC insert)도 커밋되면 member 쿼리 캐시를 무효화한다.
+     */
+    @Test
+    void saveIfAbsent_invalidatesQueryCache() {
+        // given
+        String username = "cache_saveIfAbsent";
+        assertThat(memberRepository.find(username)).isEmpty();
+
+        // when
+        assertThat(memberService.joinV7(username)).isTrue();
+
+        // then
+        assertThat(memberRepository.find(username)).isPresent();
+    }
+}
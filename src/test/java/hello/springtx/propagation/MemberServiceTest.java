@@ -1,12 +1,18 @@
 package hello.springtx.propagation;
 
+import jakarta.persistence.EntityManager;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import static hello.springtx.TestUsernames.unique;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @Slf4j
@@ -15,6 +21,8 @@ class MemberServiceTest {
     @Autowired MemberService memberService;
     @Autowired MemberRepository memberRepository;
     @Autowired LogRepository logRepository;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired EntityManager em;
 
     /**
      * memberService    @Tx:OFF
@@ -24,7 +32,7 @@ class MemberServiceTest {
     @Test
     void outerTxOff_success() {
         // given
-        String username = "outerTxOff_success";
+        String username = unique("outerTxOff_success");
 
         // when -> 모든 데이터가 정상 저장된다.
         memberService.joinV1(username);
@@ -42,7 +50,7 @@ class MemberServiceTest {
     @Test
     void outerTxOff_fail() {
         // given
-        String username = "로그예외_outerTxOff_fail";
+        String username = unique("로그예외_outerTxOff_fail");
 
         // when -> Member 저장은 커밋, Log 저장은 롤백
         assertThatThrownBy(() -> memberService.joinV1(username));
@@ -60,7 +68,7 @@ class MemberServiceTest {
     @Test
     void singleTx() {
         // given
-        String username = "singleTx";
+        String username = unique("singleTx");
 
         // when -> 모든 데이터가 정상 저장된다.
         memberService.joinV1(username);
@@ -78,7 +86,7 @@ class MemberServiceTest {
     @Test
     void outerTxOn_success() {
         // given
-        String username = "outerTxOn_success";
+        String username = unique("outerTxOn_success");
 
         // when -> memberService 에서 트랜잭션 시작 ->> memberRepo, logRepo 에서 시작한 트랜잭션들은 기존 트랜잭션을 이어받아 실행, 각각 Repo Tx는 커밋하지 않고 넘김.
         memberService.joinV1(username);
@@ -96,7 +104,7 @@ class MemberServiceTest {
     @Test
     void outerTxOn_fail() {
         // given
-        String username = "로그예외_outerTxOn_fail";
+        String username = unique("로그예외_outerTxOn_fail");
 
         // when -> memberService 신규 트랜잭션 생성 -> memberRepo 커밋(물리 커밋 호출 X) -> logRepo 롤백(롤백온리 마킹) -> memberService 물리 롤백
         assertThatThrownBy(() -> memberService.joinV1(username));
@@ -114,7 +122,7 @@ class MemberServiceTest {
     @Test
     void recoverException_fail() {
         // given
-        String username = "로그예외_recoverException_fail";
+        String username = unique("로그예외_recoverException_fail");
 
         // when -> logRepo Tx에서 예외 발생하여 롤백(물리 트랜잭션에 롤백온리 마킹) -> 하지만, 맴버 서비스에서는 해당 예외를 잡아서 먹어버림.
         // -> 물리 커밋하려하지만 롤백 온리가 마킹되어있어 물리 트랜잭션을 롤백함. -> UnexpectedRollbackException
@@ -135,7 +143,7 @@ class MemberServiceTest {
     @Test
     void recoverException_success() {
         // given
-        String username = "로그예외_recoverException_success";
+        String username = unique("로그예외_recoverException_success");
 
         // when
         memberService.joinV2(username);
@@ -145,4 +153,147 @@ class MemberServiceTest {
         Assertions.assertTrue(logRepository.find(username).isEmpty());
     }
 
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(NESTED) RuntimeException
+     */
+    @Test
+    void nestedRecoverException_success() {
+        // given
+        String username = unique("로그예외_nestedRecoverException_success");
+
+        // when -> 로그만 세이브포인트까지 롤백, 같은 커넥션에서 member 는 커밋
+        memberService.joinV5(username);
+
+        // then -> member 저장, log 롤백
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(NESTED)
+     */
+    @Test
+    void nested_success() {
+        // given
+        String username = unique("nested_success");
+
+        // when
+        memberService.joinV5(username);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * 외부 트랜잭션  @Tx:ON rollback
+     * memberService    @Tx:ON (참여)
+     * logRepository    @Tx:ON(NESTED)
+     */
+    @Test
+    void nested_outerRollback() {
+        // given
+        String username = unique("nested_outerRollback");
+
+        // when -> REQUIRES_NEW 와 달리 NESTED 로그는 외부 물리 트랜잭션이 롤백되면 함께 롤백된다.
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV5(username);
+            status.setRollbackOnly();
+        });
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+        Assertions.assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    /**
+     * 외부 트랜잭션  @Tx:ON
+     * memberRepository @Tx:ON (참여)
+     * logRepository    @Tx:ON(NESTED) DB 유니크 제약 위반
+     */
+    @Test
+    void nestedDbException_failsAtNestedCall() {
+        // given -> 같은 이벤트 키의 로그가 이미 있다.
+        String username = unique("nestedDbException_failsAtNestedCall");
+        String eventKey = unique("nested-event");
+        logRepository.save(new Log(username, eventKey));
+
+        // when -> 세이브포인트 해제 전에 flush 하므로 insert 실패가 외부 커밋이 아니라 NESTED 호출에서 드러난다.
+        //         DB 예외는 JPA 트랜잭션을 rollback-only 로 만들기 때문에 외부 트랜잭션은 커밋되지 않는다.
+        assertThatThrownBy(() -> new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member(username));
+            assertThatThrownBy(() -> logRepository.saveNested(new Log(username, eventKey)))
+                    .isInstanceOf(DataIntegrityViolationException.class);
+        })).isInstanceOf(UnexpectedRollbackException.class);
+
+        // then -> member 롤백, 기존 로그만 남는다.
+        Assertions.assertTrue(memberRepository.find(username).isEmpty());
+        Assertions.assertTrue(logRepository.find(username).isPresent());
+    }
+
+    /**
+     * 외부 트랜잭션  @Tx:ON
+     * 내부 트랜잭션  @Tx:ON(NESTED) RuntimeException
+     */
+    @Test
+    void nestedRollback_keepsOuterEntitiesManaged() {
+        // given
+        String username = unique("nestedRollback_keepsOuterEntitiesManaged");
+        String renamed = unique("nestedRollback_renamed");
+        TransactionTemplate nested = new TransactionTemplate(txManager);
+        nested.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            Member member = new Member(username);
+            memberRepository.save(member);
+            Log nestedLog = new Log(username);
+
+            // when -> 세이브포인트 이후 persist 한 로그와 외부 엔티티 변경만 되돌린다.
+            assertThatThrownBy(() -> nested.executeWithoutResult(nestedStatus -> {
+                em.persist(nestedLog);
+                member.setUsername(renamed);
+                em.flush();
+                throw new IllegalStateException("NESTED 롤백");
+            })).isInstanceOf(IllegalStateException.class);
+
+            // then -> 외부 엔티티는 세이브포인트 시점 상태로 계속 관리되고, 세이브포인트 이후 엔티티만 준영속
+            Assertions.assertTrue(em.contains(member));
+            Assertions.assertEquals(username, member.getUsername());
+            Assertions.assertFalse(em.contains(nestedLog));
+        });
+
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Assertions.assertTrue(memberRepository.find(renamed).isEmpty());
+        Assertions.assertTrue(logRepository.find(username).isEmpty());
+    }
+
+    /**
+     * 외부 트랜잭션     @Tx:ON rollback (재시도 전의 실패한 시도)
+     * memberService    @Tx:ON 재실행
+     * logRepository    @Tx:ON(REQUIRES_NEW) 같은 eventKey 로 한 번만 저장
+     */
+    @Test
+    void joinV1_retried_logOnce() {
+        // given -> 로그는 REQUIRES_NEW 로 커밋되고 회원 가입만 롤백된 시도
+        String username = unique("joinV1_retried_logOnce");
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            memberService.joinV1(username);
+            status.setRollbackOnly();
+        });
+
+        // when -> 재시도
+        memberService.joinV1(username);
+
+        // then
+        Assertions.assertTrue(memberRepository.find(username).isPresent());
+        Long logs = em.createQuery("SELECT COUNT(l) FROM Log l WHERE l.message = :message", Long.class)
+                .setParameter("message", username)
+                .getSingleResult();
+        Assertions.assertEquals(1L, logs);
+    }
+
 }
@@ -0,0 +1,130 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 소수의 username 에 여러 스레드가 동시에 가입을 시도한다.
+// 가입마다 커넥션 2개(외부 + LogRepository REQUIRES_NEW)를 잡고, 외부 트랜잭션은 다른 insert 가 기다리는 행 락도 잡고 있다.
+// -> 풀이 THREADS * 2 보다 작으면 커넥션 고갈로 멈췄다가 connectionTimeout 으로 실패하므로 풀을 넉넉하게 잡는다.
+@Slf4j
+@SpringBootTest(properties = "spring.datasource.hikari.maximum-pool-size=" + MemberUpsertContentionTest.POOL_SIZE)
+class MemberUpsertContentionTest {
+
+    static final int THREADS = 16;
+    static final int POOL_SIZE = THREADS * 2 + 2;
+    static final int USERNAMES = 8;
+    static final int ATTEMPTS = Integer.getInteger("contention.attempts", 2_000);
+
+    @Autowired MemberService memberService;
+    @Autowired LogRepository logRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+    @Autowired EntityManager em;
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON insert, username 유니크 제약 위반이면 false
+     * logRepository    @Tx:ON(REQUIRES_NEW)
+     */
+    @Test
+    void joinV7_sameUsername() throws Exception {
+        String prefix = "upsert_" + System.currentTimeMillis() + "_";
+        AtomicInteger joined = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<Throwable> failures = run(i -> {
+            if (memberService.joinV7(prefix + (i % USERNAMES))) {
+                joined.incrementAndGet();
+            }
+        });
+        double throughput = ATTEMPTS * 1_000_000_000.0 / (System.nanoTime() - start);
+        log.info("joinV7 {}회 (username {}개) -> 가입 {}건, 실패 {}건, {} req/sec",
+                ATTEMPTS, USERNAMES, joined.get(), failures.size(), String.format("%.1f", throughput));
+
+        // then -> 실패 없이 username 마다 member 와 log 가 하나씩
+        assertThat(failures).isEmpty();
+        assertThat(joined.get()).isEqualTo(USERNAMES);
+        for (int i = 0; i < USERNAMES; i++) {
+            assertThat(countMembers(prefix + i)).isOne();
+            assertThat(logRepository.find(prefix + i)).isPresent();
+        }
+    }
+
+    // 비교: persist 로 저장하는 joinV1 은 유니크 제약 위반으로 실패한다. (제약이 없으면 중복 저장된다.)
+    @Test
+    void joinV1_sameUsername() throws Exception {
+        String prefix = "persist_" + System.currentTimeMillis() + "_";
+
+        long start = System.nanoTime();
+        List<Throwable> failures = run(i -> memberService.joinV1(prefix + (i % USERNAMES)));
+        double throughput = ATTEMPTS * 1_000_000_000.0 / (System.nanoTime() - start);
+        log.info("joinV1 {}회 (username {}개) -> 실패 {}건, {} req/sec",
+                ATTEMPTS, USERNAMES, failures.size(), String.format("%.1f", throughput));
+
+        assertThat(failures).hasSize(ATTEMPTS - USERNAMES)
+                .allMatch(DataIntegrityViolationException.class::isInstance);
+        for (int i = 0; i < USERNAMES; i++) {
+            assertThat(countMembers(prefix + i)).isOne();
+        }
+    }
+
+    /**
+     * username 중복이 아닌 오류(문자열 잘림)는 "이미 가입"으로 숨기지 않고 예외로 올라온다.
+     */
+    @Test
+    void joinV7_otherErrorsFail() {
+        String tooLong = "upsert_" + "x".repeat(300);
+
+        assertThatThrownBy(() -> memberService.joinV7(tooLong));
+        assertThat(countMembers(tooLong)).isZero();
+    }
+
+    private List<Throwable> run(IndexedTask task) throws InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            List<Future<?>> results = new ArrayList<>(ATTEMPTS);
+            for (int i = 0; i < ATTEMPTS; i++) {
+                int index = i;
+                results.add(executor.submit(() -> {
+                    task.run(index);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+        }
+        return failures;
+    }
+
+    private long countMembers(String username) {
+        return transactionTemplate.execute(status -> em
+                .createQuery("SELECT COUNT(m) FROM Member m WHERE m.username = :username", Long.class)
+                .setParameter("username", username)
+                .getSingleResult());
+    }
+
+    interface IndexedTask {
+        void run(int index);
+    }
+
+}
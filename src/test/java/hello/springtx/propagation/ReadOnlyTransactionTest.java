@@ -0,0 +1,120 @@
+package hello.springtx.propagation;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// readOnly 트랜잭션은 Hibernate 세션을 기본 읽기 전용 + FlushMode.MANUAL 로 바꾼다. (SavepointHibernateJpaDialect -> HibernateJpaDialect)
+// -> 조회한 엔티티의 스냅샷을 만들지 않고, 커밋 시점에 flush(더티 체킹)도 하지 않는다.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:readOnlyTx;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class ReadOnlyTransactionTest {
+
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager txManager;
+
+    /**
+     * 읽기 전용 트랜잭션에서 엔티티를 바꿔도 DB 에 반영되지 않는다.
+     */
+    @Test
+    void readOnly_noSnapshotNoFlush() {
+        // given
+        String username = "readOnly_noSnapshotNoFlush";
+        memberService.joinV1(username);
+        TransactionTemplate readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+
+        // when
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+
+            Member member = memberRepository.find(username).orElseThrow();
+            assertThat(session.isReadOnly(member)).isTrue();
+            member.setUsername(username + "_changed");
+        });
+
+        // then
+        assertThat(memberRepository.find(username)).isPresent();
+        assertThat(memberRepository.find(username + "_changed")).isEmpty();
+    }
+
+    /**
+     * 읽기 전용 설정은 트랜잭션이 끝나면 되돌아간다.
+     */
+    @Test
+    void readWrite_afterReadOnly() {
+        // given
+        String username = "readWrite_afterReadOnly";
+        memberService.joinV1(username);
+        TransactionTemplate readOnly = new TransactionTemplate(txManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> memberRepository.find(username));
+
+        // when
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isFalse();
+
+            Member member = memberRepository.find(username).orElseThrow();
+            assertThat(session.isReadOnly(member)).isFalse();
+            member.setUsername(username + "_changed");
+        });
+
+        // then
+        assertThat(memberRepository.find(username + "_changed")).isPresent();
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서 호출된 readOnly 메서드는 외부 트랜잭션에 참여하므로 읽기 전용이 아니다.
+     */
+    @Test
+    void readOnly_participatesInReadWrite() {
+        // given
+        String username = "readOnly_participatesInReadWrite";
+        memberService.joinV1(username);
+
+        // when
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            Member member = memberRepository.find(username).orElseThrow();
+
+            // then
+            assertThat(em.unwrap(Session.class).isReadOnly(member)).isFalse();
+        });
+    }
+
+    @Test
+    void findViews() {
+        // given
+        String prefix = "findViews_";
+        memberRepository.saveAll(IntStream.range(0, 5).mapToObj(i -> new Member(prefix + i)).toList());
+        Long firstId = memberRepository.find(prefix + 0).orElseThrow().getId();
+
+        // when
+        List<MemberView> first = memberRepository.findViews(firstId - 1, 3);
+        List<MemberView> next = memberRepository.findViews(first.get(first.size() - 1).id(), 3);
+
+        // then
+        assertThat(first).extracting(MemberView::username).containsExactly(prefix + 0, prefix + 1, prefix + 2);
+        assertThat(next).extracting(MemberView::username).startsWith(prefix + 3, prefix + 4);
+    }
+}
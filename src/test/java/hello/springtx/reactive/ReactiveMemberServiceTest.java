@@ -0,0 +1,181 @@
+package hello.springtx.reactive;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import hello.springtx.propagation.MemberRepository;
+import hello.springtx.propagation.MemberService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// MemberServiceTest 의 리액티브 버전
+// JDBC(JPA)와 R2DBC 가 같은 H2 메모리 DB 를 사용한다. -> 스키마/시퀀스는 JPA ddl-auto 로 생성된다.
+
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring-tx.reactive.enabled=true",
+        "spring-tx.reactive.url=r2dbc:h2:mem:///reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring-tx.reactive.username=sa",
+        "spring-tx.reactive.password=",
+        "spring-tx.reactive.max-pool-size=" + ReactiveMemberServiceTest.POOL_SIZE,
+        "spring-tx.reactive.acquire-timeout=5s",
+        "spring.datasource.hikari.maximum-pool-size=" + ReactiveMemberServiceTest.POOL_SIZE,
+        "spring.datasource.hikari.connection-timeout=5000",
+        "spring-tx.member.cache.enabled=true"
+})
+class ReactiveMemberServiceTest {
+
+    static final int POOL_SIZE = 10;
+
+    @Autowired ReactiveMemberService memberService;
+    @Autowired ReactiveMemberRepository memberRepository;
+    @Autowired ReactiveLogRepository logRepository;
+    @Autowired MemberService blockingMemberService;
+    @Autowired MemberRepository blockingMemberRepository;
+
+    /**
+     * 블로킹 조회가 캐시한 "없음" 결과를 R2DBC 가입이 커밋 후 제거한다.
+     */
+    @Test
+    void join_evictsMemberCache() {
+        // given
+        String username = "reactive_evictsMemberCache";
+        assertThat(blockingMemberRepository.find(username)).isEmpty();
+
+        // when
+        StepVerifier.create(memberService.joinV1(username)).verifyComplete();
+
+        // then
+        assertThat(blockingMemberRepository.find(username)).isPresent();
+    }
+
+    /**
+     * memberService    @Tx:OFF
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) RuntimeException
+     */
+    @Test
+    void outerTxOff_fail() {
+        // given
+        String username = "로그예외_outerTxOff_fail";
+
+        // when -> Member 저장은 커밋, Log 저장은 롤백
+        Mono<Void> join = memberRepository.save(new Member(username))
+                .then(logRepository.save(new Log(username)));
+        StepVerifier.create(join).expectError(RuntimeException.class).verify();
+
+        // then
+        StepVerifier.create(memberRepository.find(username)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).verifyComplete();
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW)
+     */
+    @Test
+    void outerTxOn_success() {
+        // given
+        String username = "outerTxOn_success";
+
+        // when
+        StepVerifier.create(memberService.joinV1(username)).verifyComplete();
+
+        // then
+        StepVerifier.create(memberRepository.find(username)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).expectNextCount(1).verifyComplete();
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) RuntimeException
+     */
+    @Test
+    void outerTxOn_fail() {
+        // given
+        String username = "로그예외_outerTxOn_fail";
+
+        // when -> 로그 트랜잭션 롤백 -> 예외가 memberService 까지 전파되어 member 트랜잭션도 롤백
+        StepVerifier.create(memberService.joinV1(username)).expectError(RuntimeException.class).verify();
+
+        // then
+        StepVerifier.create(memberRepository.find(username)).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).verifyComplete();
+    }
+
+    /**
+     * memberService    @Tx:ON
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) RuntimeException
+     */
+    @Test
+    void recoverException_success() {
+        // given
+        String username = "로그예외_recoverException_success";
+
+        // when
+        StepVerifier.create(memberService.joinV2(username)).verifyComplete();
+
+        // then -> member 저장, log 롤백
+        StepVerifier.create(memberRepository.find(username)).expectNextCount(1).verifyComplete();
+        StepVerifier.create(logRepository.find(username)).verifyComplete();
+    }
+
+    // 같은 동시 요청 수에서 블로킹(JPA)과 리액티브(R2DBC) joinV1 처리량 비교 (./gradlew loadTest)
+    // r2dbc-h2 는 내부적으로 H2 를 동기 호출하므로, 실제 차이는 r2dbc-mysql 로 측정해야 한다.
+    // joinV1 은 요청마다 커넥션 2개(외부 + REQUIRES_NEW)를 잡는다. -> 동시 요청을 풀 크기의 1/3 이하로 제한해서
+    // 모든 요청이 외부 커넥션만 잡고 REQUIRES_NEW 커넥션을 기다리는 고갈 상태(ConnectionStarvationTest)를 피한다.
+    @Test
+    @Tag("load")
+    void throughput_blocking_vs_reactive() throws Exception {
+        int requests = Integer.getInteger("load.requests", 2_000);
+        int concurrency = POOL_SIZE / 3;
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(concurrency)) {
+            List<Future<?>> results = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                String username = "blocking_" + i;
+                results.add(executor.submit(() -> blockingMemberService.joinV1(username)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+        double blocking = requests * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        start = System.nanoTime();
+        Flux.range(0, requests)
+                .flatMap(i -> memberService.joinV1("reactive_" + i), concurrency)
+                .blockLast(Duration.ofMinutes(5));
+        double reactive = requests * 1_000_000_000.0 / (System.nanoTime() - start);
+
+        log.info("joinV1 {}건 처리량 - blocking: {} req/sec, reactive: {} req/sec",
+                requests, String.format("%.1f", blocking), String.format("%.1f", reactive));
+        StepVerifier.create(memberRepository.find("blocking_" + (requests - 1))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(memberRepository.find("reactive_" + (requests - 1))).expectNextCount(1).verifyComplete();
+    }
+
+}
@@ -0,0 +1,161 @@
+package hello.springtx.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@Slf4j
+@SpringBootTest
+class RetryableTransactionTest {
+
+    @Autowired FlakyService flakyService;
+    @Autowired OuterService outerService;
+    @Autowired MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        flakyService.calls.set(0);
+    }
+
+    @Test
+    void transient_retried() {
+        // 두 번 데드락 후 성공 -> 시도마다 새 트랜잭션
+        flakyService.failures = 2;
+        double recovered = count("recovered");
+
+        flakyService.deadlock();
+
+        assertThat(flakyService.calls.get()).isEqualTo(3);
+        assertThat(count("recovered")).isEqualTo(recovered + 1);
+    }
+
+    @Test
+    void transient_exhausted() {
+        flakyService.failures = 10;
+        double exhausted = count("exhausted");
+
+        assertThatThrownBy(() -> flakyService.deadlock()).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(flakyService.calls.get()).isEqualTo(3);
+        assertThat(count("exhausted")).isEqualTo(exhausted + 1);
+    }
+
+    @Test
+    void nonTransient_notRetried() {
+        assertThatThrownBy(() -> flakyService.runtimeException()).isInstanceOf(IllegalStateException.class);
+
+        assertThat(flakyService.calls.get()).isEqualTo(1);
+    }
+
+    /**
+     * 커넥션 풀 타임아웃 -> 재시도하면 시도마다 connectionTimeout 을 다시 기다리므로 재시도하지 않는다.
+     */
+    @Test
+    void poolTimeout_notRetried() {
+        assertThatThrownBy(() -> flakyService.poolTimeout()).isInstanceOf(CannotCreateTransactionException.class);
+
+        assertThat(flakyService.calls.get()).isEqualTo(1);
+    }
+
+    // 락 경합이 아닌 일시적 오류는 재시도 대상이 아니다.
+    @Test
+    void notLockContention_notTransient() {
+        assertThat(TransientTransactionErrors.isTransient(new QueryTimeoutException("query timeout"))).isFalse();
+        assertThat(TransientTransactionErrors.isTransient(
+                new ObjectOptimisticLockingFailureException(FlakyService.class, 1L))).isFalse();
+        assertThat(TransientTransactionErrors.isTransient(
+                new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms."))).isFalse();
+    }
+
+    @Test
+    void participating_notRetried() {
+        // 외부 트랜잭션에 참여한 내부 호출은 재시도하지 않는다.
+        flakyService.failures = 1;
+
+        assertThatThrownBy(() -> outerService.outer()).isInstanceOf(CannotAcquireLockException.class);
+
+        assertThat(flakyService.calls.get()).isEqualTo(1);
+    }
+
+    private double count(String outcome) {
+        Counter counter = meterRegistry.find("transaction.retries")
+                .tag("method", "FlakyService.deadlock")
+                .tag("outcome", outcome)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @TestConfiguration
+    static class RetryTestConfiguration {
+        @Bean
+        FlakyService flakyService() {
+            return new FlakyService();
+        }
+
+        @Bean
+        OuterService outerService(FlakyService flakyService) {
+            return new OuterService(flakyService);
+        }
+    }
+
+    static class FlakyService {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile int failures;
+
+        @RetryableTransaction(initialBackoffMillis = 1)
+        @Transactional
+        public void deadlock() {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            if (calls.incrementAndGet() <= failures) {
+                throw new CannotAcquireLockException("Deadlock found when trying to get lock");
+            }
+        }
+
+        // 풀이 고갈되어 트랜잭션 시작 시 커넥션을 얻지 못한 경우와 같은 예외
+        @RetryableTransaction(initialBackoffMillis = 1)
+        public void poolTimeout() {
+            calls.incrementAndGet();
+            throw new CannotCreateTransactionException("Could not open JPA EntityManager for transaction",
+                    new SQLTransientConnectionException("HikariPool-1 - Connection is not available, request timed out after 30000ms."));
+        }
+
+        @RetryableTransaction(initialBackoffMillis = 1)
+        @Transactional
+        public void runtimeException() {
+            calls.incrementAndGet();
+            throw new IllegalStateException();
+        }
+    }
+
+    static class OuterService {
+        private final FlakyService flakyService;
+
+        OuterService(FlakyService flakyService) {
+            this.flakyService = flakyService;
+        }
+
+        @Transactional
+        public void outer() {
+            flakyService.deadlock();
+        }
+    }
+
+}
@@ -0,0 +1,157 @@
+package hello.springtx.shard;
+
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// H2 메모리 DB 3개를 샤드로 사용한다. 스키마는 커넥션을 열 때 shard-schema.sql 로 만든다.
+@Slf4j
+@SpringBootTest(properties = {
+        "spring-tx.shard.enabled=true",
+        "spring-tx.shard.shards[0].url=" + ShardedMemberServiceTest.H2 + "shard0" + ShardedMemberServiceTest.H2_OPTIONS,
+        "spring-tx.shard.shards[0].username=sa",
+        "spring-tx.shard.shards[1].url=" + ShardedMemberServiceTest.H2 + "shard1" + ShardedMemberServiceTest.H2_OPTIONS,
+        "spring-tx.shard.shards[1].username=sa",
+        "spring-tx.shard.shards[2].url=" + ShardedMemberServiceTest.H2 + "shard2" + ShardedMemberServiceTest.H2_OPTIONS,
+        "spring-tx.shard.shards[2].username=sa",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+class ShardedMemberServiceTest {
+
+    static final String H2 = "jdbc:h2:mem:";
+    static final String H2_OPTIONS = ";MODE=MySQL;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:shard-schema.sql'";
+
+    @Autowired ShardedMemberService shardedMemberService;
+    @Autowired ShardRouter shardRouter;
+    @Autowired ShardRoutingDataSource routingDataSource;
+
+    /**
+     * memberService    @Tx:ON (소속 샤드)
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) (같은 샤드)
+     */
+    @Test
+    void joinV1_ownerShard() {
+        for (int i = 0; i < 30; i++) {
+            // given
+            String username = "shard_joinV1_" + i;
+            int owner = shardRouter.shardFor(username);
+
+            // when
+            shardedMemberService.joinV1(username);
+
+            // then -> member, log 모두 소속 샤드에만 저장된다.
+            for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+                int expected = shard == owner ? 1 : 0;
+                assertThat(count(shard, "member", "username", username)).isEqualTo(expected);
+                assertThat(count(shard, "log", "message", username)).isEqualTo(expected);
+            }
+            assertThat(shardedMemberService.find(username)).isPresent();
+            assertThat(shardedMemberService.findLog(username)).isPresent();
+        }
+    }
+
+    /**
+     * memberService    @Tx:ON (소속 샤드)
+     * memberRepository @Tx:ON
+     * logRepository    @Tx:ON(REQUIRES_NEW) RuntimeException
+     */
+    @Test
+    void joinV1_fail_rollbackOwnerShard() {
+        // given
+        String username = "로그예외_shard_joinV1_fail";
+
+        // when -> 한 샤드 안의 트랜잭션이므로 member 도 함께 롤백된다.
+        assertThatThrownBy(() -> shardedMemberService.joinV1(username));
+
+        // then
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            assertThat(count(shard, "member", "username", username)).isZero();
+            assertThat(count(shard, "log", "message", username)).isZero();
+        }
+    }
+
+    @Test
+    void findAll_scatterGather() {
+        // given -> 여러 샤드에 흩어진 회원
+        List<String> usernames = IntStream.range(0, 20).mapToObj(i -> "shard_findAll_" + i).toList();
+        usernames.forEach(shardedMemberService::joinV2);
+        assertThat(usernames.stream().map(shardRouter::shardFor).distinct().count()).isGreaterThan(1);
+
+        // when
+        List<Member> members = shardedMemberService.findAll(usernames);
+
+        // then
+        assertThat(members).extracting(Member::getUsername).containsExactlyInAnyOrderElementsOf(usernames);
+    }
+
+    // 소속 샤드를 모르는 로그 메시지 조회 -> 0번 샤드만이 아니라 모든 샤드를 조회한다.
+    @Test
+    void findLogs_fanOut() {
+        // given -> 0번이 아닌 샤드에 저장된 로그
+        String username = IntStream.range(0, 100).mapToObj(i -> "shard_findLogs_" + i)
+                .filter(name -> shardRouter.shardFor(name) != 0)
+                .findFirst().orElseThrow();
+        shardedMemberService.joinV1(username);
+
+        // when
+        List<Log> logs = shardedMemberService.findLogs(username);
+
+        // then
+        assertThat(logs).extracting(Log::getMessage).containsExactly(username);
+    }
+
+    // ddl-auto 는 0번 샤드에만 적용되므로 샤드 모드에서는 none 만 허용한다.
+    @Test
+    void ddlAuto_rejected() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(AvailableSettings.HBM2DDL_AUTO, "update");
+
+        assertThatThrownBy(() -> new ShardConfig().shardSchemaGuard().customize(properties))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * id 블록(ID_BLOCK_SIZE)을 샤드마다 여러 번 받을 만큼 가입 -> 샤드끼리, 샤드 안에서 id 가 겹치지 않는다.
+     */
+    @Test
+    void ids_disjointAcrossShards() {
+        // given
+        int members = Member.ID_BLOCK_SIZE * shardRouter.getShardCount() * 2 + 1;
+        List<String> usernames = IntStream.range(0, members).mapToObj(i -> "shard_ids_" + i).toList();
+
+        // when
+        usernames.forEach(shardedMemberService::joinV1);
+
+        // then
+        List<Member> found = shardedMemberService.findAll(usernames);
+        assertThat(found).hasSize(members);
+        assertThat(found).extracting(Member::getId).doesNotHaveDuplicates();
+        for (Member member : found) {
+            assertThat(member.getId() % ShardPooledLoOptimizer.ID_STRIDE).isEqualTo(shardRouter.shardFor(member.getUsername()));
+        }
+    }
+
+    private int count(int shard, String table, String column, String value) {
+        DataSource dataSource = routingDataSource.getResolvedDataSources().get(shard);
+        Integer count = new JdbcTemplate(dataSource)
+                .queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " = ?", Integer.class, value);
+        return count == null ? 0 : count;
+    }
+
+}
@@ -0,0 +1,110 @@
+package hello.springtx.warmup;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hello.springtx.propagation.Log;
+import hello.springtx.propagation.Member;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warmup;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.hikari.minimum-idle=" + TransactionWarmupTest.MIN_IDLE,
+        "spring.datasource.hikari.maximum-pool-size=10",
+        "spring-tx.warmup.enabled=true",
+        "spring-tx.warmup.iterations=" + TransactionWarmupTest.ITERATIONS,
+        "spring-tx.warmup.threads=2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TransactionWarmupTest {
+
+    static final int MIN_IDLE = 6;
+    static final int ITERATIONS = 20;
+
+    @Autowired TransactionWarmup warmup;
+    @Autowired ReadinessRecorder readinessRecorder;
+    @Autowired DataSource dataSource;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired EntityManagerFactory emf;
+
+    /**
+     * readiness 가 ACCEPTING_TRAFFIC 으로 바뀌기 전에 워밍업이 모두 끝나 있어야 한다.
+     */
+    @Test
+    void warmUpBeforeReadiness() {
+        assertThat(readinessRecorder.iterationsWhenReady).isEqualTo(ITERATIONS);
+        assertThat(warmup.getCompletedIterations()).isEqualTo(ITERATIONS);
+    }
+
+    @Test
+    void fillPool() throws SQLException {
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        assertThat(hikari.getHikariPoolMXBean().getTotalConnections()).isGreaterThanOrEqualTo(MIN_IDLE);
+    }
+
+    /**
+     * 워밍업은 member, log 를 남기지 않는다.
+     */
+    @Test
+    void nothingCommitted() {
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from log", Long.class)).isZero();
+    }
+
+    /**
+     * 롤백 전에 flush 하므로 insert 가 DB 에서 실행된다.
+     * 회당 joinV5(member + log), joinV1(member), joinV2(member)
+     */
+    @Test
+    void insertsExecutedBeforeRollback() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        assertThat(statistics.getEntityStatistics(Member.class.getName()).getInsertCount()).isEqualTo(ITERATIONS * 3L);
+        assertThat(statistics.getEntityStatistics(Log.class.getName()).getInsertCount()).isEqualTo(ITERATIONS);
+        assertThat(statistics.getTransactionCount()).isGreaterThanOrEqualTo(ITERATIONS * 3L);
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        ReadinessRecorder readinessRecorder(TransactionWarmup warmup) {
+            return new ReadinessRecorder(warmup);
+        }
+    }
+
+    static class ReadinessRecorder {
+
+        private final TransactionWarmup warmup;
+        volatile int iterationsWhenReady = -1;
+
+        ReadinessRecorder(TransactionWarmup warmup) {
+            this.warmup = warmup;
+        }
+
+        @EventListener
+        public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                iterationsWhenReady = warmup.getCompletedIterations();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package hello.springtx.weaving;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// ./gradlew test -PaspectjWeaving --tests '*TransactionWeavingTest'
+// 위빙하지 않은 기본 빌드에서는 건너뛴다.
+@Slf4j
+@SpringBootTest
+class TransactionWeavingTest {
+
+    @Autowired CallService callService;
+
+    @BeforeEach
+    void assumeWoven() {
+        assumeTrue(WovenTransactionCondition.isWoven(CallService.class), "built without -PaspectjWeaving");
+    }
+
+    @Test
+    void noProxy() {
+        log.info("callService class = {}", callService.getClass());
+        assertThat(AopUtils.isAopProxy(callService)).isFalse();
+    }
+
+    /**
+     * InternalCallV1Test 와 같은 구조: external() -> this.internal()
+     * 위빙된 빌드에서는 내부 호출도 트랜잭션이 적용된다.
+     */
+    @Test
+    void selfInvocation() {
+        // when
+        callService.external();
+
+        // then
+        assertThat(callService.internalTxActive).isTrue();
+        assertThat(callService.externalTxActive).isFalse();
+    }
+
+    @TestConfiguration
+    static class TestContextConfiguration {
+        @Bean
+        CallService callService() {
+            return new CallService();
+        }
+    }
+
+    static class CallService {
+
+        boolean externalTxActive;
+        boolean internalTxActive;
+
+        public void external() {
+            internal();
+            externalTxActive = TransactionSynchronizationManager.isActualTransactionActive();
+        }
+
+        @Transactional
+        public void internal() {
+            internalTxActive = TransactionSynchronizationManager.isActualTransactionActive();
+        }
+    }
+}
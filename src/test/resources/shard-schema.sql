@@ -0,0 +1,29 @@
+-- 샤드용 H2 스키마 (H2Dialect 로 생성되는 DDL 과 같은 구조), 커넥션을 열 때마다 실행되므로 IF NOT EXISTS
+-- 시퀀스는 샤드마다 1부터 시작해도 된다. id 에 샤드 번호가 붙는다. (ShardPooledLoOptimizer)
+CREATE SEQUENCE IF NOT EXISTS member_id_seq START WITH 1 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS log_id_seq START WITH 1 INCREMENT BY 100;
+CREATE SEQUENCE IF NOT EXISTS log_outbox_seq START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE IF NOT EXISTS member (
+    id BIGINT NOT NULL PRIMARY KEY,
+    username VARCHAR(255),
+    version BIGINT,
+    CONSTRAINT uk_member_username UNIQUE (username)
+);
+
+CREATE TABLE IF NOT EXISTS log (
+    id BIGINT NOT NULL PRIMARY KEY,
+    message VARCHAR(255),
+    event_key VARCHAR(255),
+    CONSTRAINT uk_log_event_key UNIQUE (event_key)
+);
+CREATE INDEX IF NOT EXISTS idx_log_message ON log (message);
+
+CREATE TABLE IF NOT EXISTS log_outbox (
+    id BIGINT NOT NULL PRIMARY KEY,
+    event_key VARCHAR(255),
+    message VARCHAR(255),
+    created_at TIMESTAMP(6) WITH TIME ZONE,
+    attempts INTEGER NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_log_outbox_attempts_created_at ON log_outbox (attempts, created_at);